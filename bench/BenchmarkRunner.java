@@ -0,0 +1,54 @@
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Small, dependency free benchmark runner.  Each benchmark is warmed up, then run
+ * for a number of timed iterations, and reports its throughput along with how much
+ * it allocated on the heap per operation.
+ */
+public class BenchmarkRunner {
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final com.sun.management.ThreadMXBean threads;
+    // Results are written here so the JIT can't throw away the work that made them
+    private static volatile Object sink;
+
+    public BenchmarkRunner(int warmupIterations, int measureIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+        System.out.printf("%-56s %14s %14s %14s%n", "Benchmark", "ops/s", "ns/op", "B/op");
+    }
+
+    public void run(String name, Supplier<?> operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation);
+        }
+        long operations = 0;
+        long nanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < measureIterations; i++) {
+            long threadId = Thread.currentThread().threadId();
+            long startBytes = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            operations += iteration(operation);
+            nanos += System.nanoTime() - start;
+            bytes += threads.getThreadAllocatedBytes(threadId) - startBytes;
+        }
+        System.out.printf("%-56s %14.1f %14.1f %14.1f%n", name,
+                operations * 1e9 / nanos, (double) nanos / operations, (double) bytes / operations);
+    }
+
+    private static long iteration(Supplier<?> operation) {
+        long operations = 0;
+        long end = System.nanoTime() + ITERATION_NANOS;
+        do {
+            sink = operation.get();
+            operations++;
+        } while (System.nanoTime() < end);
+        return operations;
+    }
+}
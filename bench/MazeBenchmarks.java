@@ -0,0 +1,245 @@
+import edu.usu.graphics.Color;
+import edu.usu.graphics.Graphics2D;
+import edu.usu.graphics.Graphics2DUtils;
+import edu.usu.graphics.Rectangle;
+import edu.usu.graphics.Texture;
+import edu.usu.utils.Tuple3;
+import edu.usu.utils.Tuple8;
+import org.joml.Matrix4f;
+import org.joml.Vector2f;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Benchmarks for the hot paths of the game: building mazes, solving them, scoring
+ * a move, and preparing the vertex data for a frame.  None of them need a window
+ * or an OpenGL context.
+ *
+ * <p>Run with the bench folder and src on the classpath, for example
+ * {@code java -cp out:lwjgl-lib/* MazeBenchmarks [filter]}.  Only benchmarks whose
+ * name contains the filter are run.  Allocation is counted on the benchmark thread
+ * only, work handed to other threads (the parallel generator, the maze pool) is not
+ * included in B/op.
+ */
+public class MazeBenchmarks {
+    private static final int[] MAZE_SIZES = {5, 20, 200, 2000};
+    private static final long SEED = 12345L;
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        BenchmarkRunner runner = new BenchmarkRunner(2, 5);
+
+        for (int size : MAZE_SIZES) {
+            bench(runner, filter, "Maze.<init> Prim " + size + "x" + size,
+                    () -> new Maze(size, size, 1f / size, new PrimGenerator(), SEED));
+        }
+        bench(runner, filter, "Maze.<init> Kruskal 500x500", () -> new Maze(500, 500, 1f / 500, new KruskalGenerator(), SEED));
+        bench(runner, filter, "Maze.<init> Wilson 500x500", () -> new Maze(500, 500, 1f / 500, new WilsonGenerator(), SEED));
+        bench(runner, filter, "Maze.<init> Eller 500x500", () -> new Maze(500, 500, 1f / 500, new EllerGenerator(), SEED));
+        bench(runner, filter, "Maze.<init> Parallel 500x500", () -> new Maze(500, 500, 1f / 500, new ParallelGenerator(), SEED));
+
+        for (int size : MAZE_SIZES) {
+            Maze maze = new Maze(size, size, 1f / size, new PrimGenerator(), SEED);
+            bench(runner, filter, "ShortestPath.findShortestPath " + size + "x" + size, () -> {
+                ShortestPath shortestPath = new ShortestPath(maze);
+                shortestPath.findShortestPath(size - 1, size - 1);
+                return shortestPath;
+            });
+        }
+
+        if ("ShortestPath.wallChanged 2000x2000".contains(filter)) {
+            // A maze of its own, since every operation leaves one wall flipped
+            Maze maze = new Maze(2000, 2000, 1f / 2000, new PrimGenerator(), SEED);
+            ShortestPath shortestPath = new ShortestPath(maze);
+            shortestPath.findShortestPath(1999, 1999);
+            SplittableRandom walls = new SplittableRandom(SEED);
+            bench(runner, filter, "ShortestPath.wallChanged 2000x2000", () -> {
+                int row = walls.nextInt(1999);
+                int col = walls.nextInt(1999);
+                int wall = walls.nextBoolean() ? Maze.WALL_DOWN : Maze.WALL_RIGHT;
+                maze.toggleWall(row, col, wall);
+                shortestPath.wallChanged(row, col, wall);
+                return shortestPath;
+            });
+        }
+
+        // Point to point queries between nearby cells of a big maze, the case where a
+        // solver that doesn't flood the whole board should win
+        Maze bigMaze = new Maze(2000, 2000, 1f / 2000, new PrimGenerator(), SEED);
+        for (String solverName : new String[]{"bfs", "bidirectional", "astar", "bitboard"}) {
+            PathSolver solver = PathSolver.forName(solverName);
+            SplittableRandom queries = new SplittableRandom(SEED);
+            bench(runner, filter, "PathSolver.solve " + solver.getName() + " 2000x2000 nearby", () -> {
+                int row = queries.nextInt(1900);
+                int col = queries.nextInt(1900);
+                int start = row * 2000 + col;
+                int goal = (row + queries.nextInt(100)) * 2000 + col + queries.nextInt(100);
+                return solver.solve(bigMaze, start, goal);
+            });
+        }
+
+        // Corner to corner, the same query ShortestPath answers, node by node against 64 cells a word
+        for (String solverName : new String[]{"bfs", "bitboard"}) {
+            PathSolver solver = PathSolver.forName(solverName);
+            bench(runner, filter, "PathSolver.solve " + solver.getName() + " 2000x2000 corners",
+                    () -> solver.solve(bigMaze, 0, bigMaze.getCellCount() - 1));
+        }
+
+        if ("JunctionGraph.path 2000x2000".contains(filter)) {
+            JunctionGraph junctions = new JunctionGraph(bigMaze);
+            bench(runner, filter, "JunctionGraph.path 2000x2000 corners", () -> junctions.path(0, bigMaze.getCellCount() - 1));
+            SplittableRandom queries = new SplittableRandom(SEED);
+            bench(runner, filter, "JunctionGraph.path 2000x2000 nearby", () -> {
+                int row = queries.nextInt(1900);
+                int col = queries.nextInt(1900);
+                return junctions.path(row * 2000 + col, (row + queries.nextInt(100)) * 2000 + col + queries.nextInt(100));
+            });
+        }
+
+        if ("HierarchicalPathfinder.path 2000x2000".contains(filter)) {
+            HierarchicalPathfinder chunks = new HierarchicalPathfinder(bigMaze, 32);
+            bench(runner, filter, "HierarchicalPathfinder.path 2000x2000 corners", () -> chunks.path(0, bigMaze.getCellCount() - 1));
+            SplittableRandom queries = new SplittableRandom(SEED);
+            bench(runner, filter, "HierarchicalPathfinder.path 2000x2000 nearby", () -> {
+                int row = queries.nextInt(1900);
+                int col = queries.nextInt(1900);
+                return chunks.path(row * 2000 + col, (row + queries.nextInt(100)) * 2000 + col + queries.nextInt(100));
+            });
+            bench(runner, filter, "HierarchicalPathfinder.rebuildChunkAt 32x32", () -> {
+                chunks.rebuildChunkAt(queries.nextInt(bigMaze.getCellCount()));
+                return chunks;
+            });
+        }
+
+        // Whole board distance fields, one thread against every core in the common pool
+        bench(runner, filter, "ParallelBfs.sequentialDistancesFrom 2000x2000",
+                () -> ParallelBfs.sequentialDistancesFrom(bigMaze, 0));
+        ParallelBfs parallelBfs = new ParallelBfs();
+        bench(runner, filter, "ParallelBfs.distancesFrom 2000x2000", () -> parallelBfs.distancesFrom(bigMaze, 0));
+
+        if ("MazeTree.distance 2000x2000".contains(filter)) {
+            MazeTree tree = new MazeTree(bigMaze);
+            SplittableRandom pairs = new SplittableRandom(SEED);
+            bench(runner, filter, "MazeTree.distance 2000x2000",
+                    () -> tree.distance(pairs.nextInt(bigMaze.getCellCount()), pairs.nextInt(bigMaze.getCellCount())));
+        }
+
+        if ("MazePool.take 20x20".contains(filter)) {
+            // Restarts come faster than the background can keep up with, so the misses show
+            // how often a restart would have to build its maze on the render thread
+            try (MazePool pool = new MazePool(2, PrimGenerator::new)) {
+                pool.prepare(20, 20, 1 / 25f);
+                bench(runner, filter, "MazePool.take 20x20", () -> pool.take(20, 20, 1 / 25f));
+                counts("MazePool.take 20x20", pool.getHits(), pool.getMisses());
+            }
+        }
+
+        if ("MazeCache.get 20x20".contains(filter)) {
+            // More seeds than the cache holds, so some replays have to build the maze again
+            MazeCache cache = new MazeCache(8);
+            SplittableRandom seeds = new SplittableRandom(SEED);
+            bench(runner, filter, "MazeCache.get 20x20",
+                    () -> cache.get(20, 20, 1 / 25f, seeds.nextInt(12), new PrimGenerator()));
+            counts("MazeCache.get 20x20", cache.getHits(), cache.getMisses());
+        }
+
+        if ("Game.updateScore".contains(filter)) {
+            // Only the constructor of Graphics2D runs, so no window is ever opened
+            Game game = new Game(new Graphics2D(1920, 1080, "Benchmark"));
+            game.createMaze(20, 20, 1 / 25f);
+            bench(runner, filter, "Game.updateScore", () -> {
+                game.updateScore();
+                return game;
+            });
+        }
+
+        // Built once per maze now, rather than every frame
+        Maze smallMaze = new Maze(20, 20, 1 / 25f, new PrimGenerator(), SEED);
+        bench(runner, filter, "WallMeshBuilder.build 20x20", () -> WallMeshBuilder.build(smallMaze));
+        bench(runner, filter, "WallMeshBuilder.build 2000x2000", () -> WallMeshBuilder.build(bigMaze));
+
+        ArrayList<Tuple3<Rectangle, Color, Matrix4f>> rectangles = frameRectangles();
+        bench(runner, filter, "Graphics2DUtils.prepareRectsSolidColorInstances",
+                () -> Graphics2DUtils.prepareRectsSolidColorInstances(rectangles));
+        ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> glyphs = frameGlyphs();
+        bench(runner, filter, "Graphics2DUtils.prepareTextGlyphBuffers",
+                () -> Graphics2DUtils.prepareTextGlyphBuffers(glyphs));
+    }
+
+    private static void bench(BenchmarkRunner runner, String filter, String name, Supplier<?> operation) {
+        if (name.contains(filter)) {
+            runner.run(name, operation);
+        }
+    }
+
+    /**
+     * Reports how often a pool or cache had what was asked for, warmup included.
+     */
+    private static void counts(String name, int hits, int misses) {
+        System.out.printf("%-56s hits: %d misses: %d%n", name, hits, misses);
+    }
+
+    /**
+     * The solid rectangles drawn in a typical frame: the walls of a 20x20 maze, the
+     * player, and the finish message background.
+     */
+    private static ArrayList<Tuple3<Rectangle, Color, Matrix4f>> frameRectangles() {
+        Maze maze = new Maze(20, 20, 1 / 25f, new PrimGenerator(), SEED);
+        Matrix4f identity = new Matrix4f();
+        float cellSize = maze.getCellSize();
+        float thickness = cellSize * 0.025f;
+        ArrayList<Tuple3<Rectangle, Color, Matrix4f>> rectangles = new ArrayList<>();
+        for (int row = 0; row < maze.getRows(); row++) {
+            for (int col = 0; col < maze.getCols(); col++) {
+                float left = -0.5f + col * cellSize;
+                float top = -0.5f + row * cellSize;
+                if (maze.hasWall(row, col, Maze.WALL_UP)) {
+                    rectangles.add(new Tuple3<>(new Rectangle(left, top, cellSize, thickness, 0.3f), Color.YELLOW, identity));
+                }
+                if (maze.hasWall(row, col, Maze.WALL_DOWN)) {
+                    rectangles.add(new Tuple3<>(new Rectangle(left, top + cellSize, cellSize, thickness, 0.3f), Color.YELLOW, identity));
+                }
+                if (maze.hasWall(row, col, Maze.WALL_LEFT)) {
+                    rectangles.add(new Tuple3<>(new Rectangle(left, top, thickness, cellSize, 0.3f), Color.YELLOW, identity));
+                }
+                if (maze.hasWall(row, col, Maze.WALL_RIGHT)) {
+                    rectangles.add(new Tuple3<>(new Rectangle(left + cellSize, top, thickness, cellSize, 0.3f), Color.YELLOW, identity));
+                }
+            }
+        }
+        rectangles.add(new Tuple3<>(new Rectangle(-0.5f, -0.5f, 0.025f, 0.025f, 0.2f), Color.RED, identity));
+        rectangles.add(new Tuple3<>(new Rectangle(-0.475f, -0.475f, 0.75f, 0.4f, 0.9f), Color.BLACK, identity));
+        return rectangles;
+    }
+
+    /**
+     * One glyph for every character of the text drawn in a typical frame.
+     */
+    private static ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> frameGlyphs() {
+        String[] lines = {
+                "Instructions:", "Use arrow keys or awsd to navigate", "F1 - New Game 5x5 ", "F2 - New Game 10x10 ",
+                "F3 - New Game 15x15 ", "F4 - New Game 20x20 ", "R - Replay Same Maze ", "F5 - Display High Scores ",
+                "F6 - Display Credits", "F7 - Endless Maze", "Time: 00:42", "Score: 17"
+        };
+        Matrix4f identity = new Matrix4f();
+        ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> glyphs = new ArrayList<>();
+        float top = -0.5f;
+        for (String line : lines) {
+            float left = -1.0f;
+            for (int i = 0; i < line.length(); i++) {
+                float u = (line.charAt(i) % 16) / 16f;
+                float v = (line.charAt(i) / 16 % 16) / 16f;
+                glyphs.add(new Tuple8<>(null, new Rectangle(left, top, 0.01f, 0.02f, 0.0f),
+                        new Vector2f(u, v), new Vector2f(u + 1 / 16f, v),
+                        new Vector2f(u + 1 / 16f, v + 1 / 16f), new Vector2f(u, v + 1 / 16f),
+                        identity, new Vector3f(1, 1, 1)));
+                left += 0.01f;
+            }
+            top += 0.06f;
+        }
+        return glyphs;
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that {@link ParallelBfs} run on several threads measures the same distances
+ * as the sequential search, and that {@link ShortestPath} traces the same path from
+ * them, on perfect mazes and on mazes with loops cut into them.  The mazes are big
+ * enough to go past the sequential threshold, and the most open one has levels wide
+ * enough to be split across the pool.
+ *
+ * <p>Run with the bench folder and src on the classpath, for example
+ * {@code java -cp out:lwjgl-lib/* ParallelBfsCheck}.  Exits with an error on the
+ * first mismatch.
+ */
+public class ParallelBfsCheck {
+    private static final long SEED = 12345L;
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) {
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        // A pool of one falls back to the sequential search
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            ParallelBfs parallel = new ParallelBfs(pool);
+            ParallelBfs sequential = new ParallelBfs(single);
+
+            check("perfect 300x300", new Maze(300, 300, 1f / 300, new PrimGenerator(), SEED), parallel, sequential, false);
+            check("perfect 1000x1000", new Maze(1000, 1000, 1f / 1000, new KruskalGenerator(), SEED), parallel, sequential, false);
+            check("loops 300x300", withLoops(new Maze(300, 300, 1f / 300, new PrimGenerator(), SEED), 0.1), parallel, sequential, false);
+            check("loops 2500x2500", withLoops(new Maze(2500, 2500, 1f / 2500, new PrimGenerator(), SEED), 0.9), parallel, sequential, true);
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+        System.out.println("ParallelBfs matches the sequential search");
+    }
+
+    private static void check(String name, Maze maze, ParallelBfs parallel, ParallelBfs sequential, boolean split) {
+        int cellCount = maze.getCellCount();
+        if (cellCount < ParallelBfs.SEQUENTIAL_THRESHOLD) {
+            throw new IllegalStateException(name + " is too small to be searched in parallel");
+        }
+        SplittableRandom sources = new SplittableRandom(SEED);
+        int center = maze.getRows() / 2 * maze.getCols() + maze.getCols() / 2;
+        int[] sourceCells = {0, cellCount - 1, center, sources.nextInt(cellCount), sources.nextInt(cellCount)};
+        int widest = 0;
+        for (int source : sourceCells) {
+            int[] expected = ParallelBfs.sequentialDistancesFrom(maze, source);
+            widest = Math.max(widest, widestLevel(expected));
+            int[] actual = parallel.distancesFrom(maze, source);
+            if (!Arrays.equals(expected, actual)) {
+                int cell = Arrays.mismatch(expected, actual);
+                throw new AssertionError(name + ": distance from " + source + " to " + cell
+                        + " is " + actual[cell] + ", expected " + expected[cell]);
+            }
+        }
+        if (split && widest <= ParallelBfs.CHUNK) {
+            throw new IllegalStateException(name + " never has a level wide enough to be split across the pool");
+        }
+
+        ShortestPath expectedPath = new ShortestPath(maze, sequential);
+        ShortestPath actualPath = new ShortestPath(maze, parallel);
+        expectedPath.findShortestPath(maze.getRows() - 1, maze.getCols() - 1);
+        actualPath.findShortestPath(maze.getRows() - 1, maze.getCols() - 1);
+        if (!Arrays.equals(expectedPath.getPath(), actualPath.getPath())) {
+            throw new AssertionError(name + ": paths differ from step " + Arrays.mismatch(expectedPath.getPath(), actualPath.getPath()));
+        }
+        System.out.printf("%-24s %d sources, widest level %d cells, path %d cells%n",
+                name, sourceCells.length, widest, actualPath.getPath().length);
+    }
+
+    /**
+     * Takes down each wall between cells with the given chance, so there is more than
+     * one way around and the frontier grows wide.
+     */
+    private static Maze withLoops(Maze maze, double share) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int row = 0; row < maze.getRows() - 1; row++) {
+            for (int col = 0; col < maze.getCols() - 1; col++) {
+                if (random.nextDouble() < share) {
+                    maze.setWall(row, col, Maze.WALL_DOWN, false);
+                }
+                if (random.nextDouble() < share) {
+                    maze.setWall(row, col, Maze.WALL_RIGHT, false);
+                }
+            }
+        }
+        return maze;
+    }
+
+    private static int widestLevel(int[] distances) {
+        int[] levels = new int[distances.length];
+        int widest = 0;
+        for (int distance : distances) {
+            if (distance >= 0) {
+                widest = Math.max(widest, ++levels[distance]);
+            }
+        }
+        return widest;
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+
+/**
+ * Checks that a {@link StreamingMaze} never strands the player.  A player explores
+ * depth first through the public API only, stepping one cell at a time, backing
+ * out of dead ends the way it came, and moving the window with every step.  It
+ * has to keep finding a way down for thousands of rows, for many seeds and window
+ * sizes, and the window must never hold more rows than it was given.
+ *
+ * <p>Run with the bench folder and src on the classpath, for example
+ * {@code java -cp out:lwjgl-lib/* StreamingMazeCheck}.  Exits with an error on the
+ * first player that gets stuck.
+ */
+public class StreamingMazeCheck {
+    private static final int COLS = 40;
+    private static final int DEPTH = 5000;
+    private static final int SEEDS = 50;
+    private static final int[] WINDOWS = {2, 3, 8, 16, 32, 64};
+    private static final String[] DIRECTIONS = {"down", "left", "right", "up"};
+
+    public static void main(String[] args) {
+        for (int windowRows : WINDOWS) {
+            long steps = 0;
+            for (int seed = 0; seed < SEEDS; seed++) {
+                steps += walk(windowRows, seed);
+            }
+            System.out.printf("window %2d rows: %d players reached row %d, %.0f steps each%n",
+                    windowRows, SEEDS, DEPTH, (double) steps / SEEDS);
+        }
+        System.out.println("StreamingMaze never strands the player");
+    }
+
+    /**
+     * Explores until reaching DEPTH, returning the number of steps taken.
+     */
+    private static long walk(int windowRows, int seed) {
+        StreamingMaze maze = new StreamingMaze(COLS, windowRows, 1f / COLS, new SplittableRandom(seed));
+        // The order of directions tried is shuffled by its own stream, apart from the maze's
+        SplittableRandom choices = new SplittableRandom(~seed);
+        HashSet<Long> visited = new HashSet<>();
+        ArrayDeque<long[]> trail = new ArrayDeque<>();
+        int row = 0;
+        int col = 0;
+        visited.add(cell(row, col));
+        long steps = 0;
+        while (row < DEPTH) {
+            if (maze.getLastRow() - maze.getFirstRow() + 1 > windowRows) {
+                throw new AssertionError("window of " + windowRows + " holds rows " + maze.getFirstRow() + " to " + maze.getLastRow());
+            }
+            String next = null;
+            int start = choices.nextInt(DIRECTIONS.length);
+            for (int i = 0; i < DIRECTIONS.length && next == null; i++) {
+                // Down first, so the walk makes progress, then the rest in a random order
+                String direction = i == 0 ? "down" : DIRECTIONS[1 + (start + i) % (DIRECTIONS.length - 1)];
+                if (maze.wallNotExists(row, col, direction) && !visited.contains(cell(row + rowStep(direction), col + colStep(direction)))) {
+                    next = direction;
+                }
+            }
+            if (next != null) {
+                trail.push(new long[]{row, col});
+                row += rowStep(next);
+                col += colStep(next);
+                visited.add(cell(row, col));
+            } else {
+                if (trail.isEmpty()) {
+                    throw new AssertionError(stuck(windowRows, seed, row, maze));
+                }
+                long[] back = trail.pop();
+                if (!open(maze, row, col, (int) back[0], (int) back[1])) {
+                    throw new AssertionError(stuck(windowRows, seed, row, maze));
+                }
+                row = (int) back[0];
+                col = (int) back[1];
+            }
+            maze.advanceTo(row);
+            steps++;
+        }
+        return steps;
+    }
+
+    private static boolean open(StreamingMaze maze, int row, int col, int toRow, int toCol) {
+        for (String direction : DIRECTIONS) {
+            if (row + rowStep(direction) == toRow && col + colStep(direction) == toCol) {
+                return maze.wallNotExists(row, col, direction);
+            }
+        }
+        return false;
+    }
+
+    private static String stuck(int windowRows, int seed, int row, StreamingMaze maze) {
+        return "window " + windowRows + " seed " + seed + ": stuck on row " + row
+                + " with rows " + maze.getFirstRow() + " to " + maze.getLastRow() + " held";
+    }
+
+    private static int rowStep(String direction) {
+        return switch (direction) {
+            case "up" -> -1;
+            case "down" -> 1;
+            default -> 0;
+        };
+    }
+
+    private static int colStep(String direction) {
+        return switch (direction) {
+            case "left" -> -1;
+            case "right" -> 1;
+            default -> 0;
+        };
+    }
+
+    private static long cell(int row, int col) {
+        return (long) row * COLS + col;
+    }
+}
@@ -0,0 +1,20 @@
+#version 330
+
+layout (location=0) in vec2 corner;
+layout (location=1) in vec4 rect;
+layout (location=2) in float z;
+layout (location=3) in vec3 color;
+layout (location=4) in vec4 texRect;
+
+uniform mat4 mProjection;
+uniform mat4 mModel;
+
+out vec2 outTexCoord;
+out vec3 outColor;
+
+void main()
+{
+    gl_Position = mProjection * mModel * vec4(rect.xy + corner * rect.zw, z, 1.0);
+    outTexCoord = texRect.xy + corner * texRect.zw;
+    outColor = color;
+}
@@ -0,0 +1,58 @@
+/**
+ * A* search guided by the Manhattan distance to the goal.  Open cells wait in a
+ * binary heap of longs, each holding the cell's estimated total cost in the high
+ * half and its index in the low half, so nothing is boxed.
+ */
+public class AStarSolver implements PathSolver {
+    private final StampedValues parents = new StampedValues();
+    private final StampedValues costs = new StampedValues();
+    private final StampedValues closed = new StampedValues();
+    private final LongHeap open = new LongHeap();
+
+    @Override
+    public int[] solve(Maze maze, int start, int goal) {
+        int cellCount = maze.getCellCount();
+        int cols = maze.getCols();
+        int goalRow = goal / cols;
+        int goalCol = goal % cols;
+        parents.reset(cellCount);
+        costs.reset(cellCount);
+        closed.reset(cellCount);
+        open.clear();
+
+        parents.put(start, start);
+        costs.put(start, 0);
+        open.push(estimate(start, cols, goalRow, goalCol), start);
+        while (!open.isEmpty()) {
+            int current = LongHeap.index(open.pop());
+            if (closed.contains(current)) {
+                // a stale entry left behind when a cheaper route was found
+                continue;
+            }
+            if (current == goal) {
+                return BfsSolver.reverse(parents.chainFrom(goal));
+            }
+            closed.put(current, 1);
+            int cost = costs.get(current) + 1;
+            for (int wall : Maze.WALLS) {
+                if (maze.hasFlag(current, wall)) {
+                    continue;
+                }
+                int neighbor = maze.neighbor(current, wall);
+                if (neighbor < 0 || closed.contains(neighbor)) {
+                    continue;
+                }
+                if (!costs.contains(neighbor) || cost < costs.get(neighbor)) {
+                    costs.put(neighbor, cost);
+                    parents.put(neighbor, current);
+                    open.push(cost + estimate(neighbor, cols, goalRow, goalCol), neighbor);
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    private static int estimate(int index, int cols, int goalRow, int goalCol) {
+        return Math.abs(index / cols - goalRow) + Math.abs(index % cols - goalCol);
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Plain breadth first search, flooding out from the start until the goal is reached.
+ */
+public class BfsSolver implements PathSolver {
+    private final StampedValues parents = new StampedValues();
+    private int[] queue = new int[0];
+
+    @Override
+    public int[] solve(Maze maze, int start, int goal) {
+        int cellCount = maze.getCellCount();
+        parents.reset(cellCount);
+        if (queue.length < cellCount) {
+            queue = new int[cellCount];
+        }
+        int head = 0;
+        int tail = 0;
+        parents.put(start, start);
+        queue[tail++] = start;
+        while (head < tail) {
+            int current = queue[head++];
+            if (current == goal) {
+                return reverse(parents.chainFrom(goal));
+            }
+            for (int wall : Maze.WALLS) {
+                if (maze.hasFlag(current, wall)) {
+                    continue;
+                }
+                int neighbor = maze.neighbor(current, wall);
+                if (neighbor >= 0 && !parents.contains(neighbor)) {
+                    parents.put(neighbor, current);
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    static int[] reverse(int[] cells) {
+        for (int i = 0, j = cells.length - 1; i < j; i++, j--) {
+            int swap = cells[i];
+            cells[i] = cells[j];
+            cells[j] = swap;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Breadth first search from both ends at once, always growing whichever side has
+ * the smaller frontier by one full level.  The two searches meet around the middle,
+ * so each only has to cover about half the distance.
+ */
+public class BidirectionalBfsSolver implements PathSolver {
+    private static class Side {
+        final StampedValues parents = new StampedValues();
+        final StampedValues distances = new StampedValues();
+        int[] queue = new int[0];
+        int head;
+        int tail;
+
+        void reset(int cellCount, int root) {
+            parents.reset(cellCount);
+            distances.reset(cellCount);
+            if (queue.length < cellCount) {
+                queue = new int[cellCount];
+            }
+            parents.put(root, root);
+            distances.put(root, 0);
+            queue[0] = root;
+            head = 0;
+            tail = 1;
+        }
+
+        int frontierSize() {return tail - head;}
+    }
+
+    private final Side forward = new Side();
+    private final Side backward = new Side();
+
+    @Override
+    public int[] solve(Maze maze, int start, int goal) {
+        int cellCount = maze.getCellCount();
+        forward.reset(cellCount, start);
+        backward.reset(cellCount, goal);
+        if (start == goal) {
+            return new int[]{start};
+        }
+
+        while (forward.frontierSize() > 0 && backward.frontierSize() > 0) {
+            int meeting = forward.frontierSize() <= backward.frontierSize()
+                    ? expandLevel(maze, forward, backward)
+                    : expandLevel(maze, backward, forward);
+            if (meeting >= 0) {
+                int[] front = BfsSolver.reverse(forward.parents.chainFrom(meeting));
+                int[] back = backward.parents.chainFrom(meeting);
+                int[] path = new int[front.length + back.length - 1];
+                System.arraycopy(front, 0, path, 0, front.length);
+                System.arraycopy(back, 1, path, front.length, back.length - 1);
+                return path;
+            }
+        }
+        return new int[0];
+    }
+
+    /**
+     * Expands every cell in the current level of side and returns the cell joining the
+     * two searches with the shortest total distance, or -1 if they haven't met yet.
+     * The whole level is finished before answering, since the first cell found
+     * touching the other side isn't always the best one once walls can form loops.
+     */
+    private int expandLevel(Maze maze, Side side, Side other) {
+        int best = -1;
+        int bestLength = Integer.MAX_VALUE;
+        int levelEnd = side.tail;
+        for (; side.head < levelEnd; side.head++) {
+            int current = side.queue[side.head];
+            int distance = side.distances.get(current) + 1;
+            for (int wall : Maze.WALLS) {
+                if (maze.hasFlag(current, wall)) {
+                    continue;
+                }
+                int neighbor = maze.neighbor(current, wall);
+                if (neighbor < 0 || side.parents.contains(neighbor)) {
+                    continue;
+                }
+                side.parents.put(neighbor, current);
+                side.distances.put(neighbor, distance);
+                side.queue[side.tail++] = neighbor;
+                if (other.distances.contains(neighbor) && distance + other.distances.get(neighbor) < bestLength) {
+                    best = neighbor;
+                    bestLength = distance + other.distances.get(neighbor);
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,204 @@
+import java.util.Arrays;
+
+/**
+ * Experimental breadth first search over a {@link WallBitboard}.  The wavefront is
+ * a set of bits, and each step moves a whole word of it at once: shifting by one
+ * bit steps left or right, the same word one row over steps up or down, and the
+ * opening bits mask off the moves that would go through a wall.  Only words that
+ * hold part of the wavefront are touched, so a thin front on a big board stays
+ * cheap.
+ *
+ * <p>Each level's words are kept so the path can be walked back from the goal,
+ * stepping at every level to the open neighbor that was on the level before.
+ */
+public class BitboardSolver implements PathSolver {
+    private Maze bitboardMaze;
+    private int bitboardVersion;
+    private WallBitboard bitboard;
+    private long[] visited = new long[0];
+    private long[] frontierBits = new long[0];
+    private long[] nextBits = new long[0];
+    private int[] frontierWords = new int[0];
+    private int[] nextWords = new int[0];
+    private int frontierCount;
+    private int nextCount;
+    // Words of every level searched so far, level d is historyStart[d] until historyStart[d + 1]
+    private int[] historyWords = new int[16];
+    private long[] historyBits = new long[16];
+    private int historySize;
+    private int[] historyStart = new int[16];
+
+    /**
+     * Returns the cell indices of a shortest path from start to goal.  The walls are
+     * packed again only when the maze or its walls have changed since the last call.
+     */
+    @Override
+    public int[] solve(Maze maze, int start, int goal) {
+        return solve(bitboardFor(maze), start, goal);
+    }
+
+    public int[] solve(WallBitboard board, int start, int goal) {
+        int level = search(board, start, goal);
+        return level < 0 ? new int[0] : walkBack(board, goal, level);
+    }
+
+    /**
+     * Returns the number of steps from start to goal, or -1 if goal can't be reached,
+     * without building the path.
+     */
+    public int distance(Maze maze, int start, int goal) {
+        return search(bitboardFor(maze), start, goal);
+    }
+
+    private WallBitboard bitboardFor(Maze maze) {
+        if (maze != bitboardMaze || maze.getWallVersion() != bitboardVersion) {
+            bitboard = new WallBitboard(maze);
+            bitboardMaze = maze;
+            bitboardVersion = maze.getWallVersion();
+        }
+        return bitboard;
+    }
+
+    private int search(WallBitboard board, int start, int goal) {
+        // Leftovers from a search that stopped at its goal
+        for (int i = 0; i < frontierCount; i++) {
+            frontierBits[frontierWords[i]] = 0;
+        }
+        int cols = board.getCols();
+        int wordCount = board.getRows() * board.getWordsPerRow();
+        if (visited.length < wordCount) {
+            visited = new long[wordCount];
+            frontierBits = new long[wordCount];
+            nextBits = new long[wordCount];
+            frontierWords = new int[wordCount];
+            nextWords = new int[wordCount];
+        } else {
+            Arrays.fill(visited, 0, wordCount, 0);
+        }
+        historySize = 0;
+
+        int startWord = board.wordIndex(start / cols, start % cols);
+        visited[startWord] = 1L << (start % cols);
+        frontierBits[startWord] = visited[startWord];
+        frontierWords[0] = startWord;
+        frontierCount = 1;
+        int goalWord = board.wordIndex(goal / cols, goal % cols);
+        long goalBit = 1L << (goal % cols);
+
+        for (int level = 0; frontierCount > 0; level++) {
+            recordLevel(level);
+            if ((frontierBits[goalWord] & goalBit) != 0) {
+                return level;
+            }
+            expand(board);
+            for (int i = 0; i < frontierCount; i++) {
+                frontierBits[frontierWords[i]] = 0;
+            }
+            for (int i = 0; i < nextCount; i++) {
+                visited[nextWords[i]] |= nextBits[nextWords[i]];
+            }
+            long[] swapBits = frontierBits;
+            frontierBits = nextBits;
+            nextBits = swapBits;
+            int[] swapWords = frontierWords;
+            frontierWords = nextWords;
+            nextWords = swapWords;
+            frontierCount = nextCount;
+        }
+        return -1;
+    }
+
+    /**
+     * Moves every word of the frontier one step in each direction into the next one.
+     */
+    private void expand(WallBitboard board) {
+        long[] openRight = board.getOpenRight();
+        long[] openDown = board.getOpenDown();
+        int wordsPerRow = board.getWordsPerRow();
+        int lastRowStart = (board.getRows() - 1) * wordsPerRow;
+        nextCount = 0;
+        for (int i = 0; i < frontierCount; i++) {
+            int word = frontierWords[i];
+            long front = frontierBits[word];
+            int wordInRow = word % wordsPerRow;
+
+            // Right, with the top bit carrying into the next word of the row
+            long right = front & openRight[word];
+            reach(word, right << 1);
+            if (wordInRow + 1 < wordsPerRow) {
+                reach(word + 1, right >>> 63);
+            }
+            // Left, with the bottom bit carrying into the previous word of the row
+            reach(word, (front >>> 1) & openRight[word]);
+            if (wordInRow > 0) {
+                reach(word - 1, (front << 63) & openRight[word - 1]);
+            }
+            if (word < lastRowStart) {
+                reach(word + wordsPerRow, front & openDown[word]);
+            }
+            if (word >= wordsPerRow) {
+                reach(word - wordsPerRow, front & openDown[word - wordsPerRow]);
+            }
+        }
+    }
+
+    private void reach(int word, long bits) {
+        bits &= ~visited[word];
+        if (bits == 0) {
+            return;
+        }
+        if (nextBits[word] == 0) {
+            nextWords[nextCount++] = word;
+        }
+        nextBits[word] |= bits;
+    }
+
+    private void recordLevel(int level) {
+        if (level + 1 >= historyStart.length) {
+            historyStart = Arrays.copyOf(historyStart, historyStart.length * 2);
+        }
+        if (historySize + frontierCount > historyWords.length) {
+            int capacity = Math.max(historyWords.length * 2, historySize + frontierCount);
+            historyWords = Arrays.copyOf(historyWords, capacity);
+            historyBits = Arrays.copyOf(historyBits, capacity);
+        }
+        historyStart[level] = historySize;
+        for (int i = 0; i < frontierCount; i++) {
+            historyWords[historySize] = frontierWords[i];
+            historyBits[historySize] = frontierBits[frontierWords[i]];
+            historySize++;
+        }
+        historyStart[level + 1] = historySize;
+    }
+
+    private int[] walkBack(WallBitboard board, int goal, int level) {
+        int cols = board.getCols();
+        int[] path = new int[level + 1];
+        path[level] = goal;
+        int row = goal / cols;
+        int col = goal % cols;
+        for (int d = level - 1; d >= 0; d--) {
+            if (col + 1 < cols && board.isOpenRight(row, col) && onLevel(board, d, row, col + 1)) {
+                col++;
+            } else if (col > 0 && board.isOpenRight(row, col - 1) && onLevel(board, d, row, col - 1)) {
+                col--;
+            } else if (row + 1 < board.getRows() && board.isOpenDown(row, col) && onLevel(board, d, row + 1, col)) {
+                row++;
+            } else if (row > 0 && board.isOpenDown(row - 1, col) && onLevel(board, d, row - 1, col)) {
+                row--;
+            }
+            path[d] = row * cols + col;
+        }
+        return path;
+    }
+
+    private boolean onLevel(WallBitboard board, int level, int row, int col) {
+        int word = board.wordIndex(row, col);
+        for (int i = historyStart[level]; i < historyStart[level + 1]; i++) {
+            if (historyWords[i] == word) {
+                return (historyBits[i] & (1L << col)) != 0;
+            }
+        }
+        return false;
+    }
+}
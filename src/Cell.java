@@ -1,102 +1,93 @@
 import java.util.ArrayList;
 
+/**
+ * Lightweight view over a single square of a {@link Maze}.  The walls are not
+ * stored here, they live in the maze's packed cell storage, so views can be created
+ * freely and two views of the same square are equal.  Where the player has been
+ * and which cells are on the shortest path are kept by {@link MazeSession} and
+ * {@link ShortestPath}, not on the maze.
+ */
 public class Cell {
-    private boolean wallUp;
-    private boolean wallDown;
-    private boolean wallLeft;
-    private boolean wallRight;
-    private boolean inFrontier;
-    private boolean inMaze;
-    private boolean visited;
-    private boolean onShortestPath;
-    private Cell parent;
+    private final Maze maze;
     private final int row;
     private final int col;
 
 
-    public Cell(int row, int col) {
+    Cell(Maze maze, int row, int col) {
+        this.maze = maze;
         this.row = row;
         this.col = col;
-        wallUp = true;
-        wallDown = true;
-        wallLeft = true;
-        wallRight = true;
-        visited = false;
     }
 
-    public boolean getInMaze() {return inMaze;}
-    public boolean getInFrontier() {return inFrontier;}
-
-    public void setInFrontier(boolean inFrontier) {this.inFrontier = inFrontier;}
-    public void setInMaze(boolean inMaze) {this.inMaze = inMaze;}
-
-    public void setOnShortestPath(boolean onShortestPath) {this.onShortestPath = onShortestPath;}
-    public boolean getOnShortestPath() {return this.onShortestPath;}
-
-    public boolean getVisited() {return visited;}
-    public void setVisited(boolean visited) {this.visited = visited;}
-
-    public Cell getParent() {return this.parent;}
-    public void setParent(Cell parent) {this.parent = parent;}
-
     public int getRow() {return row;}
     public int getCol() {return col;}
 
-    public void setWallUp(boolean state) {wallUp = state;}
-    public void setWallDown(boolean state) {wallDown = state;}
-    public void setWallLeft(boolean state) {wallLeft = state;}
-    public void setWallRight(boolean state) {wallRight = state;}
+    public void setWallUp(boolean state) {maze.setFlag(row, col, Maze.WALL_UP, state);}
+    public void setWallDown(boolean state) {maze.setFlag(row, col, Maze.WALL_DOWN, state);}
+    public void setWallLeft(boolean state) {maze.setFlag(row, col, Maze.WALL_LEFT, state);}
+    public void setWallRight(boolean state) {maze.setFlag(row, col, Maze.WALL_RIGHT, state);}
 
-    public boolean getWallUp() {return wallUp;}
-    public boolean getWallDown() {return wallDown;}
-    public boolean getWallRight() {return wallRight;}
-    public boolean getWallLeft() {return wallLeft;}
+    public boolean getWallUp() {return maze.hasFlag(row, col, Maze.WALL_UP);}
+    public boolean getWallDown() {return maze.hasFlag(row, col, Maze.WALL_DOWN);}
+    public boolean getWallRight() {return maze.hasFlag(row, col, Maze.WALL_RIGHT);}
+    public boolean getWallLeft() {return maze.hasFlag(row, col, Maze.WALL_LEFT);}
 
-    public ArrayList<Cell> getNeighbors(Cell[][] grid) {
-        int rowLength = grid.length;
-        int colLength = grid[0].length;
+    public ArrayList<Cell> getNeighbors() {
+        int rowLength = maze.getRows();
+        int colLength = maze.getCols();
         ArrayList<Cell> neighbors = new ArrayList<>();
         // Up
         if (row - 1 >= 0) {
-            neighbors.add(grid[row - 1][col]);
+            neighbors.add(maze.getCell(row - 1, col));
         }
         // Down
         if (row + 1 < rowLength) {
-            neighbors.add(grid[row + 1][col]);
+            neighbors.add(maze.getCell(row + 1, col));
         }
         // Left
         if (col - 1 >= 0) {
-            neighbors.add(grid[row][col - 1]);
+            neighbors.add(maze.getCell(row, col - 1));
         }
         // Right
         if (col + 1 < colLength) {
-            neighbors.add(grid[row][col + 1]);
+            neighbors.add(maze.getCell(row, col + 1));
         }
         return neighbors;
     }
 
-    public ArrayList<Cell> reachableNeighbors(Cell[][] grid) {
-        int rowLength = grid.length;
-        int colLength = grid[0].length;
+    public ArrayList<Cell> reachableNeighbors() {
+        int rowLength = maze.getRows();
+        int colLength = maze.getCols();
         ArrayList<Cell> neighbors = new ArrayList<>();
         // Up
         if (row - 1 >= 0 && !getWallUp()) {
-            neighbors.add(grid[row - 1][col]);
+            neighbors.add(maze.getCell(row - 1, col));
         }
         // Down
         if (row + 1 < rowLength && !getWallDown()) {
-            neighbors.add(grid[row + 1][col]);
+            neighbors.add(maze.getCell(row + 1, col));
         }
         // Left
         if (col - 1 >= 0 && !getWallLeft()) {
-            neighbors.add(grid[row][col - 1]);
+            neighbors.add(maze.getCell(row, col - 1));
         }
         // Right
         if (col + 1 < colLength && !getWallRight()) {
-            neighbors.add(grid[row][col + 1]);
+            neighbors.add(maze.getCell(row, col + 1));
         }
         return neighbors;
     }
 
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Cell cell)) return false;
+        return maze == cell.maze && row == cell.row && col == cell.col;
+    }
+
+    @Override
+    public int hashCode() {
+        return row * 31 + col;
+    }
 
 }
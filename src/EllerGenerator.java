@@ -0,0 +1,20 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Eller's algorithm.  Builds the maze one row at a time, only ever tracking which
+ * set each cell of the current row belongs to, so the extra memory is a handful
+ * of arrays the width of a row no matter how tall the maze is.
+ */
+public class EllerGenerator implements MazeGenerator {
+
+    @Override
+    public void generate(Maze maze, RandomGenerator rand) {
+        int rows = maze.getRows();
+        EllerRowStream stream = new EllerRowStream(maze.getCols(), rand);
+        byte[] walls = new byte[maze.getCols()];
+        for (int row = 0; row < rows; row++) {
+            stream.nextRow(walls, row == rows - 1);
+            maze.setRowWalls(row, walls);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Eller's algorithm as an endless stream of rows.  Only the set membership of the
+ * row being built is remembered, so memory stays at a few arrays the width of a
+ * row however many rows are pulled.  Each row handed out is final, with all four
+ * walls of every cell decided, and the rows fit together into a perfect maze.
+ */
+public class EllerRowStream {
+    private final int cols;
+    private final RandomGenerator rand;
+    // Set label of each cell in the current row, labels are always in [0, cols)
+    private final int[] sets;
+    // Union-find over set labels, reset every row
+    private final int[] setParent;
+    // Per-label bookkeeping for the vertical step and relabeling
+    private final int[] remaining;
+    private final boolean[] hasDown;
+    private final int[] relabel;
+    // Which cells of the previous row opened downward, those are open upward in this row
+    private final boolean[] openAbove;
+    private int rowsEmitted;
+
+    public EllerRowStream(int cols, RandomGenerator rand) {
+        this.cols = cols;
+        this.rand = rand;
+        this.sets = new int[cols];
+        this.setParent = new int[cols];
+        this.remaining = new int[cols];
+        this.hasDown = new boolean[cols];
+        this.relabel = new int[cols];
+        this.openAbove = new boolean[cols];
+        for (int col = 0; col < cols; col++) {
+            sets[col] = col;
+        }
+    }
+
+    public int getCols() {return cols;}
+
+    /** Number of rows handed out so far, which is also the index of the next row. */
+    public int getRowsEmitted() {return rowsEmitted;}
+
+    /**
+     * Builds the next row and writes its walls into the first cols entries of walls,
+     * using the same bits as {@link Maze}.  Passing lastRow closes the maze off, every
+     * set gets joined and no passages lead further down.
+     */
+    public void nextRow(byte[] walls, boolean lastRow) {
+        nextRow(walls, lastRow, false);
+    }
+
+    /**
+     * Builds the next row like {@link #nextRow}, but joins every set in it and opens a
+     * single passage down.  Every row after it is then connected to the others
+     * without going back above it, so the rows above can be thrown away without
+     * cutting off any part of the maze still to come.
+     */
+    public void nextCheckpointRow(byte[] walls) {
+        nextRow(walls, false, true);
+    }
+
+    private void nextRow(byte[] walls, boolean lastRow, boolean checkpoint) {
+        for (int col = 0; col < cols; col++) {
+            walls[col] = (byte) (openAbove[col] ? Maze.ALL_WALLS & ~Maze.WALL_UP : Maze.ALL_WALLS);
+        }
+        for (int label = 0; label < cols; label++) {
+            setParent[label] = label;
+        }
+
+        // join neighbors in different sets, always on the last row and on checkpoints so it all connects
+        for (int col = 0; col + 1 < cols; col++) {
+            int left = find(sets[col]);
+            int right = find(sets[col + 1]);
+            if (left != right && (lastRow || checkpoint || rand.nextBoolean())) {
+                walls[col] &= (byte) ~Maze.WALL_RIGHT;
+                walls[col + 1] &= (byte) ~Maze.WALL_LEFT;
+                setParent[right] = left;
+            }
+        }
+        rowsEmitted++;
+        if (lastRow) {
+            return;
+        }
+
+        // every set needs at least one passage down into the next row, a checkpoint has
+        // just the one set and gets exactly one passage
+        int onlyPassage = checkpoint ? rand.nextInt(cols) : -1;
+        for (int col = 0; col < cols; col++) {
+            sets[col] = find(sets[col]);
+            remaining[sets[col]]++;
+        }
+        for (int col = 0; col < cols; col++) {
+            int label = sets[col];
+            remaining[label]--;
+            openAbove[col] = checkpoint
+                    ? col == onlyPassage
+                    : rand.nextBoolean() || (remaining[label] == 0 && !hasDown[label]);
+            if (openAbove[col]) {
+                hasDown[label] = true;
+                walls[col] &= (byte) ~Maze.WALL_DOWN;
+            }
+        }
+
+        // cells carried down keep their set, everything else starts a new one.
+        // Labels are renumbered so they stay below cols.
+        int nextLabel = 0;
+        for (int label = 0; label < cols; label++) {
+            relabel[label] = -1;
+            hasDown[label] = false;
+        }
+        for (int col = 0; col < cols; col++) {
+            if (openAbove[col]) {
+                int label = sets[col];
+                if (relabel[label] < 0) {
+                    relabel[label] = nextLabel++;
+                }
+                sets[col] = relabel[label];
+            } else {
+                sets[col] = -1;
+            }
+        }
+        for (int col = 0; col < cols; col++) {
+            if (sets[col] < 0) {
+                sets[col] = nextLabel++;
+            }
+        }
+    }
+
+    private int find(int label) {
+        while (setParent[label] != label) {
+            setParent[label] = setParent[setParent[label]];
+            label = setParent[label];
+        }
+        return label;
+    }
+}
@@ -2,6 +2,7 @@ import edu.usu.graphics.*;
 import edu.usu.utils.Tuple2;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.lwjgl.glfw.GLFW.*;
 
@@ -9,7 +10,15 @@ public class Game {
     private final Graphics2D graphics;
     private final KeyboardInput inputKeyboard;
 
+    // The pool builds mazes with it and the cache keys them by its name, so both must use the same one
+    private static final Supplier<MazeGenerator> GENERATOR = PrimGenerator::new;
+
+    private final MazeCache mazeCache = new MazeCache(8);
+    private final MazePool mazePool = new MazePool(2, GENERATOR);
     private Maze maze;
+    // Set while playing the maze with no bottom, which is scored by how deep the player gets
+    private StreamingMaze endless;
+    private MazeSession session;
     private Player player;
     private ShortestPath shortestPath;
     private Cell previousPos;
@@ -21,8 +30,12 @@ public class Game {
     private Rectangle backgroundRec;
     private Rectangle finishMessage;
     private Rectangle creditsMessage;
-    private Texture star;
+    private TextureAtlas sprites;
+    private Rectangle starImage;
     private ArrayList<Tuple2<String,Integer>> highScores;
+    private StaticMesh wallMesh;
+    private MazeLayout wallMeshMaze;
+    private int wallMeshVersion;
 
     private boolean showBreadCrumbs;
     private boolean showShortestPath;
@@ -38,7 +51,12 @@ public class Game {
     }
 
     public void initialize() {
-        createMaze(20,20, 1/25.0f);
+        mazePool.prepare(5,5, 1/6.25f);
+        mazePool.prepare(10,10, 1/12.5f);
+        mazePool.prepare(15,15, 1/18.75f);
+        mazePool.prepare(20,20, 1/25f);
+        // The pool has only just started, so taking from it now would always miss
+        createMaze(20,20, 1/25.0f, new SplittableRandom().nextLong());
         initializeKeyboardInput();
         fontTime = new Font("resources/fonts/Roboto-Regular.ttf", 36, false);
         fontInstructions = new Font("resources/fonts/Roboto-Regular.ttf", 24, false);
@@ -59,7 +77,9 @@ public class Game {
         float width = this.maze.getCellSize() * this.maze.getRows();
         float height = this.maze.getCellSize() * this.maze.getCols();
         backgroundRec = new Rectangle(-0.5f, -0.5f, width, height);
-        star = new Texture("resources/images/star.png");
+        // Every sprite shares one texture, so they can all be drawn together
+        sprites = new TextureAtlas("resources/images/star.png", "resources/images/circle.png");
+        starImage = sprites.getRegion("resources/images/star.png");
     }
 
     private void initializeKeyboardInput() {
@@ -77,10 +97,12 @@ public class Game {
         inputKeyboard.registerCommand(GLFW_KEY_F2, true, (double elapsedTime) -> createMaze(10,10, 1/12.5f));
         inputKeyboard.registerCommand(GLFW_KEY_F3, true, (double elapsedTime) -> createMaze(15,15, 1/18.75f));
         inputKeyboard.registerCommand(GLFW_KEY_F4, true, (double elapsedTime) -> createMaze(20,20, 1/25f));
+        inputKeyboard.registerCommand(GLFW_KEY_R, true, (double elapsedTime) -> createMaze(maze.getRows(), maze.getCols(), maze.getCellSize(), maze.getSeed()));
         inputKeyboard.registerCommand(GLFW_KEY_P, true, (double elapsedTime) -> showShortestPath = !showShortestPath);
         inputKeyboard.registerCommand(GLFW_KEY_H, true, (double elapsedTime) -> showHint = !showHint);
         inputKeyboard.registerCommand(GLFW_KEY_F5, true, (double elapsedTime) -> showScores = !showScores);
         inputKeyboard.registerCommand(GLFW_KEY_F6, true, (double elapsedTime) -> showCredits = !showCredits);
+        inputKeyboard.registerCommand(GLFW_KEY_F7, true, (double elapsedTime) -> createEndlessMaze(20, 20, 1/25f));
         inputKeyboard.registerCommand(GLFW_KEY_I, true, (double elapsedTime) -> player.moveUp((float) elapsedTime));
         inputKeyboard.registerCommand(GLFW_KEY_K, true, (double elapsedTime) -> player.moveDown((float) elapsedTime));
         inputKeyboard.registerCommand(GLFW_KEY_J, true, (double elapsedTime) -> player.moveLeft((float) elapsedTime));
@@ -89,8 +111,12 @@ public class Game {
     }
 
     public void shutdown() {
+        mazePool.close();
         background.cleanup();
-        star.cleanup();
+        sprites.cleanup();
+        if (wallMesh != null) {
+            wallMesh.cleanup();
+        }
     }
 
     public void run() {
@@ -121,10 +147,15 @@ public class Game {
 
     private void update(double elapsedTime) {
         updateTime(elapsedTime);
+        if (endless != null) {
+            // The window follows the player down, and the score is the deepest row reached
+            endless.advanceTo(player.getRow());
+            score = Math.max(score, player.getRow());
+            return;
+        }
         updatePlayerMoved();
         if (playerMoved) {
             updateScore();
-            shortestPath.updateShortestPathStack(maze.getCell(player.getRow(),player.getCol()), previousPos);
         }
         updateVisited();
         previousPos = maze.getCell(player.getRow(),player.getCol());
@@ -139,18 +170,18 @@ public class Game {
         }
     }
 
-    private void updateScore() {
+    void updateScore() {
         // if the move is not visited
-        if (!maze.getCell(player.getRow(),player.getCol()).getVisited()) {
+        if (!session.isVisited(player.getRow(), player.getCol())) {
             // on the shortest path add 5
-            if (maze.getCell(player.getRow(),player.getCol()).getOnShortestPath()) {
+            if (shortestPath.isOnPath(player.getRow(), player.getCol())) {
                 score += 5;
                 return;
             }
-            ArrayList<Cell> neighbors = maze.getCell(player.getRow(),player.getCol()).getNeighbors(this.maze.getGrid());
+            ArrayList<Cell> neighbors = maze.getCell(player.getRow(),player.getCol()).getNeighbors();
             for (Cell neighbor : neighbors) {
                 // one away from the shortest path then subtract 1
-                if (neighbor.getOnShortestPath()) {
+                if (shortestPath.isOnPath(neighbor.getRow(), neighbor.getCol())) {
                     score -= 1;
                     return;
                 }
@@ -170,7 +201,7 @@ public class Game {
     }
 
     private void updateVisited() {
-        maze.getCell(player.getRow(),player.getCol()).setVisited(true);
+        session.setVisited(player.getRow(), player.getCol());
     }
 
     private void render(double elapsedTime) {
@@ -179,14 +210,19 @@ public class Game {
         renderBackground();
         renderAllCells();
         renderPlayer();
-        renderBreadCrumbs();
-        renderShortestPath();
-        renderHint();
+        if (endless == null) {
+            renderBreadCrumbs();
+            renderShortestPath();
+            renderHint();
+        }
         renderTime();
         renderInstructions();
         renderScore();
-        renderFinish();
-        renderFinishMessage();
+        renderPoolStats();
+        if (endless == null) {
+            renderFinish();
+            renderFinishMessage();
+        }
         renderScores();
         renderCredits();
 
@@ -255,8 +291,9 @@ public class Game {
         float left = -0.5f + (this.maze.getRows()-1) * this.maze.getCellSize();
         float width = this.maze.getCellSize();
         float height = this.maze.getCellSize();
-        Rectangle finish = new Rectangle(left, top, width, height);
-        graphics.draw(star, finish, Color.YELLOW);
+        // In front of the background, it is drawn with a different texture
+        Rectangle finish = new Rectangle(left, top, width, height, 0.1f);
+        graphics.draw(sprites.getTexture(), finish, starImage, Color.YELLOW);
     }
 
     private void renderBackground() {
@@ -268,6 +305,11 @@ public class Game {
         graphics.drawTextByHeight(fontTime,  scoreString, 0.6f, -0.46f, 0.050f, Color.WHITE);
     }
 
+    private void renderPoolStats() {
+        // Hits are F1-F4 restarts that found a maze ready, misses had to build one on this thread
+        graphics.drawTextByWidth(fontInstructions, mazePool.toString(), -1.0f, 0.22f, 0.30f, Color.WHITE);
+    }
+
     private void renderInstructions() {
         float top = -0.5f;
         graphics.drawTextByWidth(fontTime, "Instructions:", -1.0f, top, 0.30f, Color.WHITE);
@@ -282,9 +324,13 @@ public class Game {
         top += 0.06f;
         graphics.drawTextByWidth(fontInstructions, "F4 - New Game 20x20 ", -1.0f, top, 0.30f, Color.WHITE);
         top += 0.06f;
+        graphics.drawTextByWidth(fontInstructions, "R - Replay Same Maze ", -1.0f, top, 0.30f, Color.WHITE);
+        top += 0.06f;
         graphics.drawTextByWidth(fontInstructions, "F5 - Display High Scores ", -1.0f, top, 0.30f, Color.WHITE);
         top += 0.06f;
         graphics.drawTextByWidth(fontInstructions, "F6 - Display Credits", -1.0f, top, 0.30f, Color.WHITE);
+        top += 0.06f;
+        graphics.drawTextByWidth(fontInstructions, "F7 - Endless Maze", -1.0f, top, 0.30f, Color.WHITE);
     }
 
     private void renderTime() {
@@ -297,10 +343,36 @@ public class Game {
         graphics.drawTextByHeight(fontTime, formattedTime, 0.6f, -0.50f, 0.05f, Color.WHITE);
     }
 
-    private void createMaze(int x, int y, float cellSize) {
-        this.maze = new Maze(x, y, cellSize);
-        this.shortestPath = new ShortestPath(maze);
-        this.shortestPath.findShortestPath(maze.getRows()-1,maze.getCols()-1);
+    void createMaze(int x, int y, float cellSize) {
+        // Mazes come ready built from the pool, remember them so R can replay them
+        MazeCache.Entry entry = mazePool.take(x, y, cellSize);
+        mazeCache.put(entry, GENERATOR.get());
+        startMaze(entry.maze(), new ShortestPath(entry.shortestPath()));
+    }
+
+    private void createMaze(int x, int y, float cellSize, long seed) {
+        MazeCache.Entry entry = mazeCache.get(x, y, cellSize, seed, GENERATOR.get());
+        startMaze(entry.maze(), entry.shortestPath());
+    }
+
+    /**
+     * Starts a maze with no bottom, cols wide and showing windowRows rows at a time.
+     * The last fixed size maze is kept, so R still replays it.
+     */
+    private void createEndlessMaze(int cols, int windowRows, float cellSize) {
+        this.endless = new StreamingMaze(cols, windowRows, cellSize);
+        this.player = new Player(0, 0, endless);
+        this.showBreadCrumbs = false;
+        this.finished = false;
+        this.time = 0.0;
+        this.score = 0;
+    }
+
+    private void startMaze(Maze maze, ShortestPath shortestPath) {
+        this.maze = maze;
+        this.endless = null;
+        this.session = new MazeSession(maze);
+        this.shortestPath = shortestPath;
         this.player = new Player(0,0, maze);
         this.showBreadCrumbs = false;
         this.time = 0.0;
@@ -313,11 +385,11 @@ public class Game {
         final float HINT_TOP = -0.5f;
         final float HINT_SIZE = this.maze.getCellSize();
         if (showHint) {
-            Cell cell = shortestPath.getHint();
+            Cell cell = shortestPath.getHint(maze.getCell(player.getRow(), player.getCol()));
             float left = HINT_LEFT + cell.getCol() * HINT_SIZE;
             float top = HINT_TOP + cell.getRow() * HINT_SIZE;
             Rectangle r = new Rectangle(left, top, HINT_SIZE, HINT_SIZE, 0.1f);
-            graphics.draw(star, r, Color.WHITE);
+            graphics.draw(sprites.getTexture(), r, starImage, Color.WHITE);
         }
     }
 
@@ -328,12 +400,12 @@ public class Game {
         if (showBreadCrumbs) {
             for (int row = 0; row < maze.getRows(); row++) {
                 for (int col = 0; col < maze.getCols(); col++) {
-                    if (maze.getCell(row, col).getVisited()) {
+                    if (session.isVisited(row, col)) {
                         // render the breadcrumb
                         float left = BREAD_CRUMB_LEFT + maze.getCell(row,col).getCol() * BREAD_CRUMB_SIZE;
                         float top = BREAD_CRUMB_TOP + maze.getCell(row,col).getRow() * BREAD_CRUMB_SIZE;
                         Rectangle r = new Rectangle(left, top, BREAD_CRUMB_SIZE, BREAD_CRUMB_SIZE, 0.1f);
-                        graphics.draw(star, r, Color.PURPLE);
+                        graphics.draw(sprites.getTexture(), r, starImage, Color.PURPLE);
                     }
                 }
             }
@@ -345,60 +417,37 @@ public class Game {
         final float SHORTEST_PATH_TOP = -0.5f;
         final float SHORTEST_PATH_SIZE = this.maze.getCellSize();
         if (showShortestPath) {
-            Stack<Cell> shortestPathStack = shortestPath.getShortestPathStack();
-            for (Cell cell : shortestPathStack) {
+            // Follow the hints from the player until they stop at the end
+            Cell cell = maze.getCell(player.getRow(), player.getCol());
+            Cell next = shortestPath.getHint(cell);
+            while (!next.equals(cell)) {
+                cell = next;
+                next = shortestPath.getHint(cell);
                 float left = SHORTEST_PATH_LEFT + cell.getCol() * SHORTEST_PATH_SIZE;
                 float top = SHORTEST_PATH_TOP + cell.getRow() * SHORTEST_PATH_SIZE;
                 Rectangle r = new Rectangle(left, top, SHORTEST_PATH_SIZE, SHORTEST_PATH_SIZE, 0.1f);
-                graphics.draw(star, r, Color.GREEN);
+                graphics.draw(sprites.getTexture(), r, starImage, Color.GREEN);
             }
         }
     }
 
 
     private void renderAllCells() {
-        for (int row = 0; row < maze.getRows(); row++) {
-            for (int col = 0; col < maze.getCols(); col++) {
-                renderCell(maze.getCell(row,col));
+        // The walls are built again only when the maze, one of its walls, or the rows
+        // an endless maze holds change
+        MazeLayout layout = endless != null ? endless : maze;
+        if (wallMesh == null || wallMeshMaze != layout || wallMeshVersion != layout.getWallVersion()) {
+            if (wallMesh != null) {
+                wallMesh.cleanup();
             }
-
+            wallMesh = graphics.createMesh(WallMeshBuilder.build(layout));
+            wallMeshMaze = layout;
+            wallMeshVersion = layout.getWallVersion();
         }
+        graphics.draw(wallMesh);
     }
 
     private void renderPlayer() {
         graphics.draw(player.getRect(), Color.RED);
     }
-
-    private void renderCell(Cell cell) {
-        final float MAZE_LEFT = -0.5f;
-        final float MAZE_TOP = -0.5f;
-        final float CELL_SIZE = this.maze.getCellSize();
-        final float CELL_WALL_THICKNESS = CELL_SIZE * 0.025f;
-        final float CELL_Z = 0.3f;
-
-        if (cell.getWallUp()) {
-            float left = MAZE_LEFT + cell.getCol() * CELL_SIZE;
-            float top = MAZE_TOP + cell.getRow() * CELL_SIZE;
-            Rectangle r = new Rectangle(left, top, CELL_SIZE, CELL_WALL_THICKNESS, CELL_Z);
-            graphics.draw(r, Color.YELLOW);
-        }
-        if (cell.getWallDown()) {
-            float left = MAZE_LEFT + cell.getCol() * CELL_SIZE;
-            float top = MAZE_TOP + (cell.getRow() + 1) * CELL_SIZE;
-            Rectangle r = new Rectangle(left, top, CELL_SIZE, CELL_WALL_THICKNESS, CELL_Z);
-            graphics.draw(r, Color.YELLOW);
-        }
-        if (cell.getWallLeft()) {
-            float left = MAZE_LEFT + cell.getCol() * CELL_SIZE;
-            float top = MAZE_TOP + cell.getRow() * CELL_SIZE;
-            Rectangle r = new Rectangle(left, top, CELL_WALL_THICKNESS, CELL_SIZE, CELL_Z);
-            graphics.draw(r, Color.YELLOW);
-        }
-        if (cell.getWallRight()) {
-            float left = MAZE_LEFT + (cell.getCol() + 1) * CELL_SIZE;
-            float top = MAZE_TOP + cell.getRow() * CELL_SIZE;
-            Rectangle r = new Rectangle(left, top, CELL_WALL_THICKNESS, CELL_SIZE, CELL_Z);
-            graphics.draw(r, Color.YELLOW);
-        }
-    }
 }
@@ -0,0 +1,342 @@
+import java.util.Arrays;
+
+/**
+ * HPA* over a maze cut into square chunks.  Every passage that crosses from one
+ * chunk into another makes a door, and the walking distance between each pair of
+ * doors of a chunk is worked out ahead of time.  A query then searches only the
+ * doors, which are a small part of the board, and walks the cells of just the
+ * chunks the route passes through to fill in the path.
+ *
+ * <p>Each chunk's door distances depend only on the walls inside it, so after a
+ * wall changes only the one or two chunks that touch it are rebuilt.  Search state
+ * is sized by the doors and a single chunk, never by the whole board, and is kept
+ * between queries, so a pathfinder should only be used by one thread at a time.
+ */
+public class HierarchicalPathfinder {
+    private final Maze maze;
+    private final int chunkSize;
+    private final int chunkCols;
+    // Door cells of each chunk in ascending order, and the distance from door i to door j at [i * doors + j], -1 when there is no way
+    private final int[][] doors;
+    private final int[][] doorDistances;
+    // Doors are numbered across the board chunk by chunk, the doors of chunk c taking
+    // the numbers from doorBase[c], and doorCells gives the cell of each number
+    private final int[] doorBase;
+    private int[] doorCells;
+    // Cleared when a chunk is rebuilt, since its door count may have changed
+    private boolean numbered;
+
+    // Keyed by position within the chunk being flooded, row * chunkSize + col
+    private final StampedValues local = new StampedValues();
+    private final StampedValues localParents = new StampedValues();
+    // Keyed by door number, so search state grows with the doors and not the cells
+    private final StampedValues goalDistances = new StampedValues();
+    private final StampedValues costs = new StampedValues();
+    private final StampedValues parents = new StampedValues();
+    private final StampedValues closed = new StampedValues();
+    private final LongHeap open = new LongHeap();
+    private final int[] queue;
+    // How the last search reached its goal, through door number endDoor or straight across one chunk
+    private int endDoor;
+    private boolean direct;
+
+    public HierarchicalPathfinder(Maze maze, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.maze = maze;
+        this.chunkSize = chunkSize;
+        this.chunkCols = (maze.getCols() + chunkSize - 1) / chunkSize;
+        int chunkRows = (maze.getRows() + chunkSize - 1) / chunkSize;
+        this.doors = new int[chunkRows * chunkCols][];
+        this.doorDistances = new int[chunkRows * chunkCols][];
+        this.doorBase = new int[chunkRows * chunkCols + 1];
+        this.queue = new int[chunkSize * chunkSize];
+        for (int chunk = 0; chunk < doors.length; chunk++) {
+            buildChunk(chunk);
+        }
+    }
+
+    public int getChunkSize() {return chunkSize;}
+    public int getChunkCount() {return doors.length;}
+
+    /**
+     * Rebuilds the chunks on both sides of a wall that was opened or closed.
+     */
+    public void wallChanged(int row, int col, int wall) {
+        int index = row * maze.getCols() + col;
+        rebuildChunkAt(index);
+        int neighbor = maze.neighbor(index, wall);
+        if (neighbor >= 0 && chunkOf(neighbor) != chunkOf(index)) {
+            rebuildChunkAt(neighbor);
+        }
+    }
+
+    /**
+     * Works out the doors of the chunk holding the given cell again.
+     */
+    public void rebuildChunkAt(int index) {
+        buildChunk(chunkOf(index));
+    }
+
+    public int distance(int a, int b) {
+        return search(a, b);
+    }
+
+    /**
+     * Returns the cell indices of a shortest path from a to b, both included, or an
+     * empty array if b can't be reached.
+     */
+    public int[] path(int a, int b) {
+        int distance = search(a, b);
+        if (distance < 0) {
+            return new int[0];
+        }
+        int[] path = new int[distance + 1];
+        if (direct) {
+            appendLocalPath(path, 0, a, b);
+            return path;
+        }
+        // Doors from the first one reached back to the last, then the cells between each pair
+        int[] route = parents.chainFrom(endDoor);
+        for (int i = 0; i < route.length; i++) {
+            route[i] = doorCells[route[i]];
+        }
+        int at = appendLocalPath(path, 0, a, route[route.length - 1]);
+        for (int i = route.length - 1; i > 0; i--) {
+            if (chunkOf(route[i]) == chunkOf(route[i - 1])) {
+                at = appendLocalPath(path, at, route[i], route[i - 1]);
+            } else {
+                path[++at] = route[i - 1];
+            }
+        }
+        appendLocalPath(path, at, doorCells[endDoor], b);
+        return path;
+    }
+
+    /**
+     * A* over the doors, guided by the Manhattan distance to b.  The start is joined
+     * to the doors of its chunk and the goal to the doors of its own by walking the
+     * cells of just those two chunks.
+     */
+    private int search(int a, int b) {
+        if (!numbered) {
+            numberDoors();
+        }
+        int doorCount = doorCells.length;
+        int cols = maze.getCols();
+        int goalRow = b / cols;
+        int goalCol = b % cols;
+        costs.reset(doorCount);
+        parents.reset(doorCount);
+        closed.reset(doorCount);
+        open.clear();
+
+        int best = Integer.MAX_VALUE;
+        direct = false;
+        int goalChunk = chunkOf(b);
+        floodChunk(b);
+        goalDistances.reset(doorCount);
+        int[] goalDoors = doors[goalChunk];
+        for (int slot = 0; slot < goalDoors.length; slot++) {
+            if (local.contains(localIndex(goalDoors[slot]))) {
+                goalDistances.put(doorBase[goalChunk] + slot, local.get(localIndex(goalDoors[slot])));
+            }
+        }
+        if (chunkOf(a) == goalChunk && local.contains(localIndex(a))) {
+            best = local.get(localIndex(a));
+            direct = true;
+        }
+        int startChunk = chunkOf(a);
+        floodChunk(a);
+        int[] startDoors = doors[startChunk];
+        for (int slot = 0; slot < startDoors.length; slot++) {
+            if (local.contains(localIndex(startDoors[slot]))) {
+                int door = doorBase[startChunk] + slot;
+                reach(door, local.get(localIndex(startDoors[slot])), door, cols, goalRow, goalCol);
+            }
+        }
+
+        while (!open.isEmpty()) {
+            long entry = open.pop();
+            if (LongHeap.priority(entry) >= best) {
+                break;
+            }
+            int door = LongHeap.index(entry);
+            if (closed.contains(door)) {
+                // a stale entry left behind when a cheaper route was found
+                continue;
+            }
+            closed.put(door, 1);
+            int cost = costs.get(door);
+            if (goalDistances.contains(door) && cost + goalDistances.get(door) < best) {
+                best = cost + goalDistances.get(door);
+                endDoor = door;
+                direct = false;
+            }
+            int cell = doorCells[door];
+            int chunk = chunkOf(cell);
+            int count = doors[chunk].length;
+            int row = (door - doorBase[chunk]) * count;
+            for (int other = 0; other < count; other++) {
+                int step = doorDistances[chunk][row + other];
+                if (step > 0 && !closed.contains(doorBase[chunk] + other)) {
+                    reach(doorBase[chunk] + other, cost + step, door, cols, goalRow, goalCol);
+                }
+            }
+            for (int wall : Maze.WALLS) {
+                if (maze.hasFlag(cell, wall)) {
+                    continue;
+                }
+                int across = maze.neighbor(cell, wall);
+                if (across >= 0 && chunkOf(across) != chunk) {
+                    // A passage out of a chunk always lands on a door of the next one
+                    int acrossChunk = chunkOf(across);
+                    int acrossDoor = doorBase[acrossChunk] + Arrays.binarySearch(doors[acrossChunk], across);
+                    if (!closed.contains(acrossDoor)) {
+                        reach(acrossDoor, cost + 1, door, cols, goalRow, goalCol);
+                    }
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    private void reach(int door, int cost, int parent, int cols, int goalRow, int goalCol) {
+        if (!costs.contains(door) || cost < costs.get(door)) {
+            costs.put(door, cost);
+            parents.put(door, parent);
+            int cell = doorCells[door];
+            open.push(cost + Math.abs(cell / cols - goalRow) + Math.abs(cell % cols - goalCol), door);
+        }
+    }
+
+    /**
+     * Numbers the doors of every chunk one after another from zero.
+     */
+    private void numberDoors() {
+        for (int chunk = 0; chunk < doors.length; chunk++) {
+            doorBase[chunk + 1] = doorBase[chunk] + doors[chunk].length;
+        }
+        doorCells = new int[doorBase[doors.length]];
+        for (int chunk = 0; chunk < doors.length; chunk++) {
+            System.arraycopy(doors[chunk], 0, doorCells, doorBase[chunk], doors[chunk].length);
+        }
+        numbered = true;
+    }
+
+    private void buildChunk(int chunk) {
+        int cols = maze.getCols();
+        int top = chunk / chunkCols * chunkSize;
+        int left = chunk % chunkCols * chunkSize;
+        int bottom = Math.min(top + chunkSize, maze.getRows());
+        int right = Math.min(left + chunkSize, cols);
+
+        int[] found = new int[4 * chunkSize];
+        int count = 0;
+        for (int row = top; row < bottom; row++) {
+            for (int col = left; col < right; col++) {
+                if (row != top && row != bottom - 1 && col != left && col != right - 1) {
+                    continue;
+                }
+                int index = row * cols + col;
+                for (int wall : Maze.WALLS) {
+                    int neighbor = maze.neighbor(index, wall);
+                    if (!maze.hasFlag(index, wall) && neighbor >= 0 && chunkOf(neighbor) != chunk) {
+                        found[count++] = index;
+                        break;
+                    }
+                }
+            }
+        }
+
+        int[] chunkDoors = Arrays.copyOf(found, count);
+        int[] distances = new int[count * count];
+        for (int i = 0; i < count; i++) {
+            floodChunk(chunkDoors[i]);
+            for (int j = 0; j < count; j++) {
+                int slot = localIndex(chunkDoors[j]);
+                distances[i * count + j] = local.contains(slot) ? local.get(slot) : -1;
+            }
+        }
+        doors[chunk] = chunkDoors;
+        doorDistances[chunk] = distances;
+        numbered = false;
+    }
+
+    /**
+     * Breadth first from a cell without leaving its chunk, leaving the distance to
+     * every cell reached in local and the way back in localParents, both keyed by
+     * {@link #localIndex}.
+     */
+    private void floodChunk(int from) {
+        local.reset(chunkSize * chunkSize);
+        localParents.reset(chunkSize * chunkSize);
+        int cols = maze.getCols();
+        int fromSlot = localIndex(from);
+        // Cell at the top left corner of the chunk
+        int origin = from - fromSlot / chunkSize * cols - fromSlot % chunkSize;
+        int head = 0;
+        int tail = 0;
+        local.put(fromSlot, 0);
+        localParents.put(fromSlot, fromSlot);
+        queue[tail++] = fromSlot;
+        while (head < tail) {
+            int currentSlot = queue[head++];
+            int row = currentSlot / chunkSize;
+            int col = currentSlot % chunkSize;
+            int current = origin + row * cols + col;
+            for (int wall : Maze.WALLS) {
+                if (maze.hasFlag(current, wall)) {
+                    continue;
+                }
+                // Stepping within the chunk, so the neighbor's place follows from this one's
+                int slot = switch (wall) {
+                    case Maze.WALL_UP -> row > 0 ? currentSlot - chunkSize : -1;
+                    case Maze.WALL_DOWN -> row < chunkSize - 1 ? currentSlot + chunkSize : -1;
+                    case Maze.WALL_LEFT -> col > 0 ? currentSlot - 1 : -1;
+                    default -> col < chunkSize - 1 ? currentSlot + 1 : -1;
+                };
+                if (slot >= 0 && maze.neighbor(current, wall) >= 0 && !local.contains(slot)) {
+                    local.put(slot, local.get(currentSlot) + 1);
+                    localParents.put(slot, currentSlot);
+                    queue[tail++] = slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the cells after from up to and including to into path, starting just
+     * after position at, and returns the position of to.
+     */
+    private int appendLocalPath(int[] path, int at, int from, int to) {
+        path[at] = from;
+        if (from == to) {
+            return at;
+        }
+        floodChunk(from);
+        int[] steps = localParents.chainFrom(localIndex(to));
+        // Back from positions in the chunk to cells of the board
+        int cols = maze.getCols();
+        int top = from / cols / chunkSize * chunkSize;
+        int left = from % cols / chunkSize * chunkSize;
+        for (int i = steps.length - 2; i >= 0; i--) {
+            path[++at] = (top + steps[i] / chunkSize) * cols + left + steps[i] % chunkSize;
+        }
+        return at;
+    }
+
+    /**
+     * Position of a cell within its own chunk.
+     */
+    private int localIndex(int index) {
+        int cols = maze.getCols();
+        return index / cols % chunkSize * chunkSize + index % cols % chunkSize;
+    }
+
+    private int chunkOf(int index) {
+        int cols = maze.getCols();
+        return index / cols / chunkSize * chunkCols + index % cols / chunkSize;
+    }
+}
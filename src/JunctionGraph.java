@@ -0,0 +1,394 @@
+import java.util.Arrays;
+
+/**
+ * The maze with every corridor squeezed down to a single weighted edge.  Cells
+ * with exactly two open sides only lead on to the next cell, so just junctions,
+ * dead ends and the top left cell become nodes, and the search runs over those.
+ * The corridor cells are kept in edge order, so a path found between nodes can be
+ * expanded back into cells.
+ *
+ * <p>Everything is stored in flat {@code int[]} arrays, with the edges in
+ * compressed sparse row form: the edges of node n sit between
+ * {@code adjacencyStart[n]} and {@code adjacencyStart[n + 1]}.  The graph is a
+ * snapshot of the walls when it was built, and holds search state between
+ * queries, so it should only be used by one thread at a time.
+ *
+ * <p>Mazes with loops are searched with Dijkstra.  A perfect maze has only one
+ * path between two cells, so the first route found is the answer, and a plain
+ * breadth first walk over the nodes with no priority queue is used instead.
+ */
+public class JunctionGraph {
+    // Parent edges of the nodes first reached from the start, by which end of its corridor
+    private static final int START_FROM_SIDE = -1;
+    private static final int START_TO_SIDE = -2;
+    private static final int UNASSIGNED = Integer.MIN_VALUE;
+
+    private final int cols;
+    // Node number of each junction cell, or -(slot + 1) for a corridor cell in corridorCells[slot]
+    private final int[] locations;
+    private final int[] nodeCells;
+    private final int[] adjacencyStart;
+    private final int[] adjacentNodes;
+    private final int[] adjacentEdges;
+    // Corridor e runs from edgeFrom[e] to edgeTo[e] through corridorCells[corridorStart[e]] up to corridorStart[e + 1]
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] corridorStart;
+    private final int[] corridorCells;
+    private final int[] slotEdges;
+    private final boolean tree;
+
+    private final StampedValues distances = new StampedValues();
+    private final StampedValues parentNodes = new StampedValues();
+    private final StampedValues parentEdges = new StampedValues();
+    private final StampedValues settled = new StampedValues();
+    private final LongHeap open = new LongHeap();
+    private final int[] queue;
+    private int head;
+    private int tail;
+    // How the last search reached its goal
+    private int endNode;
+    private boolean goalViaFrom;
+    private boolean direct;
+
+    public JunctionGraph(Maze maze) {
+        int cellCount = maze.getCellCount();
+        this.cols = maze.getCols();
+        this.locations = new int[cellCount];
+        Arrays.fill(locations, UNASSIGNED);
+        int[] nodes = new int[cellCount];
+        int nodeCount = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (cell == 0 || openSides(maze, cell) != 2) {
+                locations[cell] = nodeCount;
+                nodes[nodeCount++] = cell;
+            }
+        }
+
+        // Every edge uses at least one passage, and every corridor cell belongs to one edge
+        int passages = maze.countPassages();
+        int[] from = new int[passages];
+        int[] to = new int[passages];
+        int[] starts = new int[passages + 1];
+        int[] corridor = new int[cellCount];
+        int[] slots = new int[cellCount];
+        int edgeCount = 0;
+        int slotCount = 0;
+        int traced = 0;
+        int scan = 0;
+        while (true) {
+            for (; traced < nodeCount; traced++) {
+                int node = nodes[traced];
+                for (int wall : Maze.WALLS) {
+                    if (maze.hasFlag(node, wall)) {
+                        continue;
+                    }
+                    int next = maze.neighbor(node, wall);
+                    if (next < 0) {
+                        continue;
+                    }
+                    if (locations[next] >= 0) {
+                        // Two nodes side by side, recorded once from the lower numbered one
+                        if (traced < locations[next]) {
+                            from[edgeCount] = traced;
+                            to[edgeCount] = locations[next];
+                            starts[++edgeCount] = slotCount;
+                        }
+                        continue;
+                    }
+                    if (locations[next] != UNASSIGNED) {
+                        // Already walked from its other end
+                        continue;
+                    }
+                    int previous = node;
+                    int cell = next;
+                    while (locations[cell] == UNASSIGNED) {
+                        locations[cell] = -(slotCount + 1);
+                        slots[slotCount] = edgeCount;
+                        corridor[slotCount++] = cell;
+                        int onward = otherOpenNeighbor(maze, cell, previous);
+                        previous = cell;
+                        cell = onward;
+                    }
+                    from[edgeCount] = traced;
+                    to[edgeCount] = locations[cell];
+                    starts[++edgeCount] = slotCount;
+                }
+            }
+            // Anything left is a loop of corridor with no junction on it, so one of its
+            // cells is made a node and the loop is walked from there
+            while (scan < cellCount && locations[scan] != UNASSIGNED) {
+                scan++;
+            }
+            if (scan == cellCount) {
+                break;
+            }
+            locations[scan] = nodeCount;
+            nodes[nodeCount++] = scan;
+        }
+
+        this.nodeCells = Arrays.copyOf(nodes, nodeCount);
+        this.edgeFrom = Arrays.copyOf(from, edgeCount);
+        this.edgeTo = Arrays.copyOf(to, edgeCount);
+        this.corridorStart = Arrays.copyOf(starts, edgeCount + 1);
+        this.corridorCells = Arrays.copyOf(corridor, slotCount);
+        this.slotEdges = Arrays.copyOf(slots, slotCount);
+
+        // Corridors that come back to the node they left never shorten a path, so
+        // they keep their cells but get no adjacency
+        this.adjacencyStart = new int[nodeCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (edgeFrom[edge] != edgeTo[edge]) {
+                adjacencyStart[edgeFrom[edge] + 1]++;
+                adjacencyStart[edgeTo[edge] + 1]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            adjacencyStart[node + 1] += adjacencyStart[node];
+        }
+        this.adjacentNodes = new int[adjacencyStart[nodeCount]];
+        this.adjacentEdges = new int[adjacencyStart[nodeCount]];
+        int[] fill = Arrays.copyOf(adjacencyStart, nodeCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (edgeFrom[edge] != edgeTo[edge]) {
+                adjacentNodes[fill[edgeFrom[edge]]] = edgeTo[edge];
+                adjacentEdges[fill[edgeFrom[edge]]++] = edge;
+                adjacentNodes[fill[edgeTo[edge]]] = edgeFrom[edge];
+                adjacentEdges[fill[edgeTo[edge]]++] = edge;
+            }
+        }
+
+        this.queue = new int[nodeCount];
+        this.tree = passages == cellCount - 1 && reachableNodes() == nodeCount;
+    }
+
+    public int getNodeCount() {return nodeCells.length;}
+    public boolean isTree() {return tree;}
+    public int getEdgeCount() {return edgeFrom.length;}
+
+    public int distance(Cell a, Cell b) {
+        return distance(index(a), index(b));
+    }
+
+    /**
+     * Returns the number of steps from a to b, or -1 if b can't be reached.
+     */
+    public int distance(int a, int b) {
+        return search(a, b);
+    }
+
+    public int[] path(Cell a, Cell b) {
+        return path(index(a), index(b));
+    }
+
+    /**
+     * Returns the cell indices of a shortest path from a to b, both included, or an
+     * empty array if b can't be reached.  The path is filled in from the goal back.
+     */
+    public int[] path(int a, int b) {
+        int distance = search(a, b);
+        if (distance < 0) {
+            return new int[0];
+        }
+        int[] path = new int[distance + 1];
+        if (direct) {
+            int step = Integer.signum(slot(b) - slot(a));
+            for (int i = 0, slot = slot(a); i <= distance; i++, slot += step) {
+                path[i] = a == b ? a : corridorCells[slot];
+            }
+            return path;
+        }
+
+        int at = distance;
+        if (locations[b] < 0) {
+            int edge = slotEdges[slot(b)];
+            if (goalViaFrom) {
+                for (int slot = slot(b); slot >= corridorStart[edge]; slot--) {
+                    path[at--] = corridorCells[slot];
+                }
+            } else {
+                for (int slot = slot(b); slot < corridorStart[edge + 1]; slot++) {
+                    path[at--] = corridorCells[slot];
+                }
+            }
+        }
+        int node = endNode;
+        int edge;
+        while ((edge = parentEdges.get(node)) >= 0) {
+            path[at--] = nodeCells[node];
+            if (node == edgeTo[edge]) {
+                for (int slot = corridorStart[edge + 1] - 1; slot >= corridorStart[edge]; slot--) {
+                    path[at--] = corridorCells[slot];
+                }
+            } else {
+                for (int slot = corridorStart[edge]; slot < corridorStart[edge + 1]; slot++) {
+                    path[at--] = corridorCells[slot];
+                }
+            }
+            node = parentNodes.get(node);
+        }
+        path[at--] = nodeCells[node];
+        if (locations[a] < 0) {
+            int startEdge = slotEdges[slot(a)];
+            if (edge == START_FROM_SIDE) {
+                for (int slot = corridorStart[startEdge]; slot <= slot(a); slot++) {
+                    path[at--] = corridorCells[slot];
+                }
+            } else {
+                for (int slot = corridorStart[startEdge + 1] - 1; slot >= slot(a); slot--) {
+                    path[at--] = corridorCells[slot];
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Dijkstra over the nodes, or a breadth first walk when the maze is a tree.  A
+     * start or goal inside a corridor is joined to the nodes at both ends of it, at
+     * the distance it sits from each.
+     */
+    private int search(int a, int b) {
+        int nodeCount = nodeCells.length;
+        distances.reset(nodeCount);
+        parentNodes.reset(nodeCount);
+        parentEdges.reset(nodeCount);
+        settled.reset(nodeCount);
+        open.clear();
+        head = 0;
+        tail = 0;
+
+        int best = Integer.MAX_VALUE;
+        direct = false;
+        if (a == b || (locations[a] < 0 && locations[b] < 0 && slotEdges[slot(a)] == slotEdges[slot(b)])) {
+            best = a == b ? 0 : Math.abs(slot(a) - slot(b));
+            direct = true;
+            if (tree) {
+                return best;
+            }
+        }
+        if (locations[a] >= 0) {
+            reach(locations[a], 0, locations[a], START_FROM_SIDE);
+        } else {
+            int edge = slotEdges[slot(a)];
+            reach(edgeFrom[edge], slot(a) - corridorStart[edge] + 1, edgeFrom[edge], START_FROM_SIDE);
+            reach(edgeTo[edge], corridorStart[edge + 1] - slot(a), edgeTo[edge], START_TO_SIDE);
+        }
+        int goalEdge = locations[b] < 0 ? slotEdges[slot(b)] : -1;
+
+        while (tree ? head < tail : !open.isEmpty()) {
+            int node;
+            if (tree) {
+                node = queue[head++];
+            } else {
+                node = LongHeap.index(open.pop());
+            }
+            int distance = distances.get(node);
+            if (best < Integer.MAX_VALUE && (tree || distance >= best)) {
+                break;
+            }
+            if (settled.contains(node)) {
+                // a stale entry left behind when a shorter route was found
+                continue;
+            }
+            settled.put(node, 1);
+            if (goalEdge < 0) {
+                if (node == locations[b]) {
+                    best = distance;
+                    endNode = node;
+                    direct = false;
+                    break;
+                }
+            } else {
+                int viaFrom = distance + slot(b) - corridorStart[goalEdge] + 1;
+                int viaTo = distance + corridorStart[goalEdge + 1] - slot(b);
+                if (node == edgeFrom[goalEdge] && viaFrom < best) {
+                    best = viaFrom;
+                    endNode = node;
+                    goalViaFrom = true;
+                    direct = false;
+                }
+                if (node == edgeTo[goalEdge] && viaTo < best) {
+                    best = viaTo;
+                    endNode = node;
+                    goalViaFrom = false;
+                    direct = false;
+                }
+            }
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                int next = adjacentNodes[i];
+                // A dead end only leads back the way it came, so unless the goal is
+                // there it is never worth queueing
+                boolean deadEnd = adjacencyStart[next + 1] - adjacencyStart[next] == 1
+                        && next != locations[b] && (goalEdge < 0 || (next != edgeFrom[goalEdge] && next != edgeTo[goalEdge]));
+                if (!deadEnd && !settled.contains(next)) {
+                    int edge = adjacentEdges[i];
+                    reach(next, distance + corridorStart[edge + 1] - corridorStart[edge] + 1, node, edge);
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    private void reach(int node, int distance, int parent, int edge) {
+        if (!distances.contains(node) || distance < distances.get(node)) {
+            distances.put(node, distance);
+            parentNodes.put(node, parent);
+            parentEdges.put(node, edge);
+            if (tree) {
+                queue[tail++] = node;
+            } else {
+                open.push(distance, node);
+            }
+        }
+    }
+
+    private int reachableNodes() {
+        int reached = 0;
+        settled.reset(nodeCells.length);
+        settled.put(0, 1);
+        queue[0] = 0;
+        head = 0;
+        tail = 1;
+        while (head < tail) {
+            int node = queue[head++];
+            reached++;
+            for (int i = adjacencyStart[node]; i < adjacencyStart[node + 1]; i++) {
+                if (!settled.contains(adjacentNodes[i])) {
+                    settled.put(adjacentNodes[i], 1);
+                    queue[tail++] = adjacentNodes[i];
+                }
+            }
+        }
+        return reached;
+    }
+
+    private int slot(int cell) {return -locations[cell] - 1;}
+
+    private int index(Cell cell) {
+        return cell.getRow() * cols + cell.getCol();
+    }
+
+    private static int openSides(Maze maze, int cell) {
+        int open = 0;
+        for (int wall : Maze.WALLS) {
+            if (!maze.hasFlag(cell, wall) && maze.neighbor(cell, wall) >= 0) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    private static int otherOpenNeighbor(Maze maze, int cell, int previous) {
+        for (int wall : Maze.WALLS) {
+            if (maze.hasFlag(cell, wall)) {
+                continue;
+            }
+            int neighbor = maze.neighbor(cell, wall);
+            if (neighbor >= 0 && neighbor != previous) {
+                return neighbor;
+            }
+        }
+        return previous;
+    }
+}
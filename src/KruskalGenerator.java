@@ -0,0 +1,79 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Randomized Kruskal's algorithm.  Walks every inner wall in random order and
+ * knocks it down whenever the cells on either side are not yet connected, using
+ * a union-find over cell indices to answer that question.
+ */
+public class KruskalGenerator implements MazeGenerator {
+    private int[] parent;
+    private byte[] rank;
+
+    @Override
+    public void generate(Maze maze, RandomGenerator rand) {
+        int cellCount = maze.getCellCount();
+        int cols = maze.getCols();
+        parent = new int[cellCount];
+        rank = new byte[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            parent[i] = i;
+        }
+
+        // Each edge is a cell index times two, plus one if it is the cell's down wall
+        // rather than its right wall
+        int[] edges = new int[2 * cellCount];
+        int edgeCount = 0;
+        for (int index = 0; index < cellCount; index++) {
+            if (index % cols + 1 < cols) {
+                edges[edgeCount++] = index << 1;
+            }
+            if (index + cols < cellCount) {
+                edges[edgeCount++] = (index << 1) | 1;
+            }
+        }
+
+        // Shuffle lazily: each step swaps a random remaining edge into place, and we
+        // can stop as soon as the spanning tree is complete
+        int joined = 0;
+        for (int i = 0; i < edgeCount && joined < cellCount - 1; i++) {
+            int swap = i + rand.nextInt(edgeCount - i);
+            int edge = edges[swap];
+            edges[swap] = edges[i];
+
+            int index = edge >>> 1;
+            int wall = (edge & 1) == 0 ? Maze.WALL_RIGHT : Maze.WALL_DOWN;
+            if (union(index, maze.neighbor(index, wall))) {
+                maze.removeWall(index, wall);
+                joined++;
+            }
+        }
+        parent = null;
+        rank = null;
+    }
+
+    private int find(int index) {
+        // Path halving, every other node on the way up points at its grandparent
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (rank[rootA] < rank[rootB]) {
+            parent[rootA] = rootB;
+        } else if (rank[rootA] > rank[rootB]) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootB] = rootA;
+            rank[rootA]++;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of longs, each holding a priority in the high half and an index
+ * in the low half, so searches can queue cells or nodes without boxing anything.
+ */
+class LongHeap {
+    private long[] heap = new long[16];
+    private int size;
+
+    boolean isEmpty() {return size == 0;}
+
+    void clear() {size = 0;}
+
+    static int priority(long entry) {return (int) (entry >>> 32);}
+
+    static int index(long entry) {return (int) entry;}
+
+    void push(int priority, int index) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        long entry = ((long) priority << 32) | index;
+        int child = size++;
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[child] = heap[parent];
+            child = parent;
+        }
+        heap[child] = entry;
+    }
+
+    long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[parent] = heap[child];
+            parent = child;
+        }
+        heap[parent] = last;
+        return top;
+    }
+}
@@ -1,143 +1,271 @@
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
-public class Maze {
-    private Cell[][] grid;
-    private ArrayList<Cell> frontier;
-    private Random rand = new Random();
-    private int rows;
-    private int cols;
-    private float cellSize;
+/**
+ * The walls of a maze and nothing else.  Anything that changes while solving or
+ * playing, like where the player has been or which cells are on the shortest path,
+ * is kept by whoever needs it in arrays of its own, so many readers can share one
+ * maze.  {@link #snapshot()} gives a copy whose walls can never change, which any
+ * number of threads can read at once without locking.
+ */
+public final class Maze implements MazeLayout {
+    // Bit layout of each entry in cells
+    static final int WALL_UP = 1;
+    static final int WALL_DOWN = 1 << 1;
+    static final int WALL_LEFT = 1 << 2;
+    static final int WALL_RIGHT = 1 << 3;
+    static final int ALL_WALLS = WALL_UP | WALL_DOWN | WALL_LEFT | WALL_RIGHT;
+    static final int[] WALLS = {WALL_UP, WALL_DOWN, WALL_LEFT, WALL_RIGHT};
+
+    // One byte per cell, row major, holding the walls above
+    private final byte[] cells;
+    private final long seed;
+    private final boolean snapshot;
+    // Bumped on every wall change, so copies of the walls can tell when they are stale
+    private int wallVersion;
+    private final int rows;
+    private final int cols;
+    private final float cellSize;
 
 
     public Maze(int rows, int cols, float cellSize) {
-        this.grid = new Cell[rows][cols];
-        this.frontier = new ArrayList<>();
+        this(rows, cols, cellSize, new PrimGenerator());
+    }
+
+    public Maze(int rows, int cols, float cellSize, MazeGenerator generator) {
+        this(rows, cols, cellSize, generator, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Builds the maze from a seed, the same seed and generator always give the same maze.
+     */
+    public Maze(int rows, int cols, float cellSize, MazeGenerator generator, long seed) {
+        this(rows, cols, cellSize, generator, seed, new SplittableRandom(seed));
+    }
+
+    /**
+     * Builds a piece of a larger maze from a random stream owned by the caller.
+     */
+    Maze(int rows, int cols, float cellSize, MazeGenerator generator, RandomGenerator rand) {
+        this(rows, cols, cellSize, generator, 0, rand);
+    }
+
+    private Maze(int rows, int cols, float cellSize, MazeGenerator generator, long seed, RandomGenerator rand) {
+        this.seed = seed;
+        this.cells = new byte[rows * cols];
+        this.snapshot = false;
         this.rows = rows;
         this.cols = cols;
         this.cellSize = cellSize;
         populateGrid();
-        generateMaze();
+        generator.generate(this, rand);
+    }
+
+    private Maze(Maze source) {
+        this.seed = source.seed;
+        this.cells = source.cells.clone();
+        this.snapshot = true;
+        this.wallVersion = source.wallVersion;
+        this.rows = source.rows;
+        this.cols = source.cols;
+        this.cellSize = source.cellSize;
     }
 
+    /**
+     * Returns a copy of the walls as they are now that can never change.  Changing
+     * this maze afterwards leaves the copy alone, and a snapshot is its own snapshot.
+     */
+    public Maze snapshot() {
+        return snapshot ? this : new Maze(this);
+    }
+
+    public boolean isSnapshot() {return snapshot;}
+
+    @Override
     public int getRows() {return rows;}
+    @Override
     public int getCols() {return cols;}
 
-    public Cell[][] getGrid() {return this.grid;}
+    public Cell getCell(int row, int col) {return new Cell(this, row, col);}
 
-    public Cell getCell(int row, int col) {return grid[row][col];}
+    Cell getCell(int index) {return new Cell(this, index / cols, index % cols);}
 
+    @Override
     public float getCellSize() {return this.cellSize;}
 
+    public long getSeed() {return this.seed;}
+
+    @Override
+    public int getWallVersion() {return this.wallVersion;}
+
+    @Override
     public boolean wallNotExists(int row, int col, String direction) {
         return !switch (direction) {
-            case "up" -> grid[row][col].getWallUp();
-            case "down" -> grid[row][col].getWallDown();
-            case "left" -> grid[row][col].getWallLeft();
-            case "right" -> grid[row][col].getWallRight();
+            case "up" -> hasFlag(row, col, WALL_UP);
+            case "down" -> hasFlag(row, col, WALL_DOWN);
+            case "left" -> hasFlag(row, col, WALL_LEFT);
+            case "right" -> hasFlag(row, col, WALL_RIGHT);
             default -> false;
         };
     }
 
-    private void generateMaze() {
-        // randomly pick a cell and add it to the maze
-        Cell firstCell = selectRandomCell();
-        // add its neighboring cells to the frontier
-        ArrayList<Cell> neighbors = firstCell.getNeighbors(this.grid);
-        addCellsToFrontier(neighbors);
-        while (!frontier.isEmpty()) {
-            // randomly choose a cell in the frontier.
-            Cell randomFrontier = selectRandomFrontier();
-            // randomly choose a wall that connects to a cell in the maze
-            // get the shared walls between the neighbors and the random frontier cell then remove a wall
-            neighbors = randomFrontier.getNeighbors(this.grid);
-            neighbors = getNeighborsInMaze(neighbors);
-            removeWall(randomFrontier, neighbors);
-            // add the cell to the maze
-            randomFrontier.setInMaze(true);
-            // update the frontier
-            updateFrontier(randomFrontier);
-        }
+    @Override
+    public boolean hasWall(int row, int col, int wall) {
+        return hasFlag(row, col, wall);
     }
 
-    private void addCellsToFrontier(ArrayList<Cell> cells) {
-        for (Cell cell : cells) {
-            frontier.add(cell);
-            cell.setInFrontier(true);
+    /**
+     * Puts up or takes down the wall on one side of a cell along with the matching
+     * wall of the neighbor.  The outside walls of the maze and the walls of a snapshot
+     * can't be changed.  Anything solved on this maze has to be told, see
+     * {@link ShortestPath#wallChanged}.
+     */
+    public void setWall(int row, int col, int wall, boolean present) {
+        int index = row * cols + col;
+        int neighbor = neighbor(index, wall);
+        if (neighbor < 0) {
+            throw new IllegalArgumentException("Only walls between two cells can be changed");
         }
+        setFlag(index, wall, present);
+        setFlag(neighbor, opposite(wall), present);
     }
 
-    private void updateFrontier(Cell selectedCell) {
-        frontier.remove(selectedCell);
-        selectedCell.setInFrontier(false);
-        ArrayList<Cell> neighbors = selectedCell.getNeighbors(grid);
-        for (Cell neighbor : neighbors) {
-            if (!neighbor.getInFrontier() && !neighbor.getInMaze()) {
-                frontier.add(neighbor);
-                neighbor.setInFrontier(true);
-            }
-        }
+    /**
+     * Flips the wall on one side of a cell and returns whether it is now up.
+     */
+    public boolean toggleWall(int row, int col, int wall) {
+        boolean present = !hasWall(row, col, wall);
+        setWall(row, col, wall, present);
+        return present;
     }
 
+    boolean hasFlag(int row, int col, int flag) {
+        return (cells[row * cols + col] & flag) != 0;
+    }
 
-    private void removeWall(Cell frontierCell, ArrayList<Cell> neighbors) {
-        // pick a random neighbor
-        int randomIndex = rand.nextInt(neighbors.size());
-        Cell neighbor = neighbors.get(randomIndex);
+    void setFlag(int row, int col, int flag, boolean state) {
+        setFlag(row * cols + col, flag, state);
+    }
 
-        // above if the col == col and neighbor.row == frontier.row - 1
-        if (neighbor.getCol() == frontierCell.getCol() && neighbor.getRow() == (frontierCell.getRow()-1)) {
-            frontierCell.setWallUp(false);
-            neighbor.setWallDown(false);
-        }
-        // below if the col == col and neighbor.row == frontier.row + 1
-        if (neighbor.getCol() == frontierCell.getCol() && neighbor.getRow() == (frontierCell.getRow()+1)) {
-            frontierCell.setWallDown(false);
-            neighbor.setWallUp(false);
+    int getCellCount() {return cells.length;}
+
+    boolean hasFlag(int index, int flag) {
+        return (cells[index] & flag) != 0;
+    }
+
+    void setFlag(int index, int flag, boolean state) {
+        checkMutable();
+        if (state) {
+            cells[index] |= (byte) flag;
+        } else {
+            cells[index] &= (byte) ~flag;
         }
+        wallVersion++;
+    }
 
-        // left if the row == row and the neighbor.col == frontier.col - 1
-        if (neighbor.getRow() == frontierCell.getRow() && neighbor.getCol() == (frontierCell.getCol()-1)) {
-            frontierCell.setWallLeft(false);
-            neighbor.setWallRight(false);
+    /**
+     * Returns the index of the cell on the other side of the given wall, or -1 if
+     * that wall is on the outside edge of the maze.
+     */
+    int neighbor(int index, int wall) {
+        int row = index / cols;
+        int col = index % cols;
+        return switch (wall) {
+            case WALL_UP -> row - 1 >= 0 ? index - cols : -1;
+            case WALL_DOWN -> row + 1 < rows ? index + cols : -1;
+            case WALL_LEFT -> col - 1 >= 0 ? index - 1 : -1;
+            case WALL_RIGHT -> col + 1 < cols ? index + 1 : -1;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Counts the open walls between pairs of cells.  A maze where every cell can be
+     * reached has exactly one fewer passage than cells when it is perfect.
+     */
+    int countPassages() {
+        int open = 0;
+        for (int index = 0; index < cells.length; index++) {
+            if (neighbor(index, WALL_DOWN) >= 0 && (cells[index] & WALL_DOWN) == 0) {
+                open++;
+            }
+            if (neighbor(index, WALL_RIGHT) >= 0 && (cells[index] & WALL_RIGHT) == 0) {
+                open++;
+            }
         }
+        return open;
+    }
+
+    /**
+     * Opens the given wall of a cell along with the matching wall of the neighbor
+     * on the other side.
+     */
+    void removeWall(int index, int wall) {
+        openWall(index, wall);
+        wallVersion++;
+    }
+
+    /**
+     * Same as {@link #removeWall} but leaves the wall version alone, for generators
+     * that carve from several threads at once.  They call {@link #wallsChanged} once
+     * when they are done.
+     */
+    void openWall(int index, int wall) {
+        checkMutable();
+        int neighbor = neighbor(index, wall);
+        cells[index] &= (byte) ~wall;
+        cells[neighbor] &= (byte) ~opposite(wall);
+    }
 
-        // right if the row == row and the neighbor.col == frontier.col + 1
-        if (neighbor.getRow() == frontierCell.getRow() && neighbor.getCol() == (frontierCell.getCol()+1)) {
-            frontierCell.setWallRight(false);
-            neighbor.setWallLeft(false);
+    /**
+     * Copies the walls of a smaller maze into this one with its top left corner at
+     * the given row and column.  Like {@link #openWall} it leaves the wall version
+     * alone, so tiles can be copied in from several threads at once.
+     */
+    void copyWalls(Maze tile, int rowOffset, int colOffset) {
+        checkMutable();
+        for (int row = 0; row < tile.rows; row++) {
+            System.arraycopy(tile.cells, row * tile.cols, cells, (row + rowOffset) * cols + colOffset, tile.cols);
         }
     }
 
-    private Cell selectRandomCell() {
-        int randomRow = rand.nextInt(grid.length);
-        int randomCol = rand.nextInt(grid[randomRow].length);
-        Cell randomCell = grid[randomRow][randomCol];
-        randomCell.setInMaze(true);
-        return randomCell;
+    /**
+     * Bumps the wall version after walls were changed without it.
+     */
+    void wallsChanged() {
+        wallVersion++;
     }
 
-    private Cell selectRandomFrontier() {
-        int randomIndex = rand.nextInt(frontier.size());
-        return frontier.get(randomIndex);
+    /**
+     * Replaces the walls of a whole row with the first cols entries of walls.
+     */
+    void setRowWalls(int row, byte[] walls) {
+        checkMutable();
+        int target = row * cols;
+        for (int col = 0; col < cols; col++) {
+            cells[target + col] = (byte) (walls[col] & ALL_WALLS);
+        }
+        wallVersion++;
     }
 
-    private ArrayList<Cell> getNeighborsInMaze(ArrayList<Cell> neighbors) {
-        ArrayList<Cell> neighborsInMaze = new ArrayList<>();
-        for (Cell neighbor : neighbors) {
-            if (neighbor.getInMaze()) {
-                neighborsInMaze.add(neighbor);
-            }
+    static int opposite(int wall) {
+        return switch (wall) {
+            case WALL_UP -> WALL_DOWN;
+            case WALL_DOWN -> WALL_UP;
+            case WALL_LEFT -> WALL_RIGHT;
+            case WALL_RIGHT -> WALL_LEFT;
+            default -> 0;
+        };
+    }
+
+    private void checkMutable() {
+        if (snapshot) {
+            throw new IllegalStateException("The walls of a maze snapshot can't be changed");
         }
-        return neighborsInMaze;
     }
 
     private void populateGrid() {
-        for (int row = 0; row < grid.length; row++) {
-            for (int col = 0; col < grid[row].length; col++) {
-                grid[row][col] = new Cell(row, col);
-            }
-        }
+        Arrays.fill(cells, (byte) ALL_WALLS);
     }
 }
-
@@ -0,0 +1,65 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used mazes along with their solved shortest paths, keyed
+ * by everything that decides what the maze looks like.  Building a maze from a seed
+ * that is already cached skips both generation and solving.  Mazes are kept as
+ * snapshots, so any number of games can play a cached maze at once.
+ */
+public class MazeCache {
+    public record Entry(Maze maze, ShortestPath shortestPath) {
+    }
+
+    private record Key(int rows, int cols, float cellSize, long seed, String algorithm) {
+    }
+
+    private final LinkedHashMap<Key, Entry> entries;
+    private int hits;
+    private int misses;
+
+    public MazeCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1");
+        }
+        // Access order makes the eldest entry the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the maze for the given settings and a fresh copy of its shortest path,
+     * generating and solving it first if it isn't cached.
+     */
+    public synchronized Entry get(int rows, int cols, float cellSize, long seed, MazeGenerator generator) {
+        Key key = new Key(rows, cols, cellSize, seed, generator.getName());
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            Maze maze = new Maze(rows, cols, cellSize, generator, seed).snapshot();
+            ShortestPath shortestPath = new ShortestPath(maze);
+            shortestPath.findShortestPath(rows - 1, cols - 1);
+            entry = new Entry(maze, shortestPath);
+            entries.put(key, entry);
+        } else {
+            hits++;
+        }
+        return new Entry(entry.maze(), new ShortestPath(entry.shortestPath()));
+    }
+
+    /**
+     * Adds a maze that was solved somewhere else, so its seed can be replayed later.
+     * The entry is kept as is, callers should play a copy of its shortest path.
+     */
+    public synchronized void put(Entry entry, MazeGenerator generator) {
+        Maze maze = entry.maze();
+        entries.put(new Key(maze.getRows(), maze.getCols(), maze.getCellSize(), maze.getSeed(), generator.getName()), entry);
+    }
+
+    public synchronized int getHits() {return hits;}
+    public synchronized int getMisses() {return misses;}
+}
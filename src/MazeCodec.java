@@ -0,0 +1,260 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Saves and loads perfect mazes in a compact form.  A perfect maze is a spanning
+ * tree, so picking one cell as the root, every other cell only needs to say which
+ * side its parent is on.  That is two bits per cell, four cells to a byte.
+ *
+ * <p>Stream layout:
+ * <pre>
+ *   int   magic ("MAZ2")
+ *   byte  version
+ *   byte  flags, bit 0 set when the cell data is deflated
+ *   int   rows
+ *   int   cols
+ *   long  seed
+ *   int   root cell index
+ *   int   length of the deflated cell data, only when it is deflated
+ *   cell data, row major, two bits per cell with the first cell in the low bits
+ * </pre>
+ * The root's own two bits are unused.  Reading stops at the end of the cell data,
+ * so several mazes can be written one after another to the same stream.
+ */
+public class MazeCodec {
+    private static final int MAGIC = 0x4D415A32;
+    private static final int VERSION = 2;
+    private static final int FLAG_DEFLATE = 1;
+
+    // Side of the cell its parent is on
+    private static final int PARENT_UP = 0;
+    private static final int PARENT_DOWN = 1;
+    private static final int PARENT_LEFT = 2;
+    private static final int PARENT_RIGHT = 3;
+    private static final int[] PARENT_WALLS = {Maze.WALL_UP, Maze.WALL_DOWN, Maze.WALL_LEFT, Maze.WALL_RIGHT};
+
+    private MazeCodec() {
+    }
+
+    /**
+     * Writes a perfect maze to out.  Mazes with loops or unreachable cells can't be
+     * described as a tree and are rejected.
+     */
+    public static void write(Maze maze, OutputStream out, boolean deflate) throws IOException {
+        int cellCount = maze.getCellCount();
+        int root = 0;
+        byte[] parents = orientFrom(maze, root);
+
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeByte(deflate ? FLAG_DEFLATE : 0);
+        header.writeInt(maze.getRows());
+        header.writeInt(maze.getCols());
+        header.writeLong(maze.getSeed());
+        header.writeInt(root);
+
+        if (deflate) {
+            // Compressed up front, the reader needs its length to know where it ends
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            // A Deflater passed in isn't ended by the stream, its native memory has to be freed here
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                DeflaterOutputStream compressed = new DeflaterOutputStream(buffer, deflater);
+                compressed.write(parents, 0, packedBytes(cellCount));
+                compressed.finish();
+            } finally {
+                deflater.end();
+            }
+            header.writeInt(buffer.size());
+            buffer.writeTo(header);
+        } else {
+            header.write(parents, 0, packedBytes(cellCount));
+        }
+        header.flush();
+    }
+
+    /**
+     * Reads a maze written by {@link #write}.  Walls are opened as the cell data
+     * streams in, nothing else is built along the way.
+     */
+    public static Maze read(InputStream in, float cellSize) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a maze file");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported maze file version " + version);
+        }
+        int flags = header.readUnsignedByte();
+        int rows = header.readInt();
+        int cols = header.readInt();
+        long seed = header.readLong();
+        int root = header.readInt();
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE || root < 0 || root >= rows * cols) {
+            throw new IOException("Corrupt maze file header");
+        }
+
+        // The inflater reads ahead, so it only gets to see the deflated block and
+        // leaves whatever follows it in the stream alone
+        BoundedInputStream block = null;
+        if ((flags & FLAG_DEFLATE) != 0) {
+            int length = header.readInt();
+            if (length < 0) {
+                throw new IOException("Corrupt maze file header");
+            }
+            block = new BoundedInputStream(in, length);
+        }
+        // The stream isn't closed, that would close in, so its Inflater is ended here instead
+        Inflater inflater = block != null ? new Inflater() : null;
+        InputStream cells = block != null ? new InflaterInputStream(block, inflater) : in;
+        try {
+            Maze maze = new Maze(rows, cols, cellSize, (target, rand) -> {
+                try {
+                    decode(target, cells, root);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, seed);
+            if (block != null) {
+                // Past the checksum at the end of the block, ready for the next maze
+                block.skipRemaining();
+            }
+            return maze;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static void decode(Maze maze, InputStream in, int root) throws IOException {
+        int cellCount = maze.getCellCount();
+        byte[] buffer = new byte[8192];
+        int index = 0;
+        while (index < cellCount) {
+            int read = in.read(buffer, 0, Math.min(buffer.length, packedBytes(cellCount - index)));
+            if (read < 0) {
+                throw new IOException("Unexpected end of maze file");
+            }
+            for (int i = 0; i < read; i++) {
+                for (int shift = 0; shift < 8 && index < cellCount; shift += 2, index++) {
+                    if (index == root) {
+                        continue;
+                    }
+                    int wall = PARENT_WALLS[(buffer[i] >> shift) & 3];
+                    if (maze.neighbor(index, wall) < 0) {
+                        throw new IOException("Maze file points cell " + index + " off the edge");
+                    }
+                    maze.removeWall(index, wall);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks the maze outward from root and records which side each cell was reached
+     * from, packed two bits per cell.
+     */
+    private static byte[] orientFrom(Maze maze, int root) {
+        int cellCount = maze.getCellCount();
+        byte[] parents = new byte[packedBytes(cellCount)];
+        long[] reached = new long[(cellCount + 63) >>> 6];
+        int[] queue = new int[cellCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        reached[root >>> 6] |= 1L << root;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int wall : Maze.WALLS) {
+                int neighbor = maze.neighbor(current, wall);
+                if (neighbor < 0 || maze.hasFlag(current, wall)) {
+                    continue;
+                }
+                if ((reached[neighbor >>> 6] & (1L << neighbor)) != 0) {
+                    continue;
+                }
+                reached[neighbor >>> 6] |= 1L << neighbor;
+                // the neighbor's parent is back through the opposite wall
+                int parent = switch (wall) {
+                    case Maze.WALL_UP -> PARENT_DOWN;
+                    case Maze.WALL_DOWN -> PARENT_UP;
+                    case Maze.WALL_LEFT -> PARENT_RIGHT;
+                    default -> PARENT_LEFT;
+                };
+                parents[neighbor >>> 2] |= (byte) (parent << ((neighbor & 3) << 1));
+                queue[tail++] = neighbor;
+            }
+        }
+        if (tail != cellCount || maze.countPassages() != cellCount - 1) {
+            throw new IllegalArgumentException("Only perfect mazes can be encoded as a tree");
+        }
+        return parents;
+    }
+
+    private static int packedBytes(int cellCount) {
+        return (cellCount + 3) >>> 2;
+    }
+
+    /**
+     * Reads no further than the given number of bytes of the stream it wraps.
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int value = in.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        void skipRemaining() throws IOException {
+            in.skipNBytes(remaining);
+            remaining = 0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Carves the passages of a {@link Maze}.  The maze hands over a grid where every
+ * wall is standing, and the generator is expected to leave behind a perfect maze,
+ * one where every cell can reach every other cell by exactly one path.
+ */
+public interface MazeGenerator {
+    void generate(Maze maze, RandomGenerator rand);
+
+    /**
+     * Name used to tell generated mazes apart, two generators with the same name
+     * must carve the same maze from the same seed.
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * The parts of a maze needed to move around in it and draw it.  Rows are numbered
+ * from the top of the maze; layouts that only keep a window of rows in memory
+ * report which rows are currently available.
+ */
+public interface MazeLayout {
+    int getRows();
+    int getCols();
+    float getCellSize();
+    boolean wallNotExists(int row, int col, String direction);
+
+    /**
+     * Checks a single wall using the wall bits from {@link Maze}.  Only valid for
+     * rows between getFirstRow and getLastRow, and never changes which rows those are.
+     */
+    boolean hasWall(int row, int col, int wall);
+
+    /**
+     * Changes whenever a wall or the rows held in memory change, so anything built
+     * from the walls can tell when it has to be built again.
+     */
+    int getWallVersion();
+
+    /** First row still held in memory. */
+    default int getFirstRow() {return 0;}
+
+    /** Last row generated so far. */
+    default int getLastRow() {return getRows() - 1;}
+}
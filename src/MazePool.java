@@ -0,0 +1,118 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Generates and solves mazes in the background so that starting a new game is just
+ * a matter of picking up one that is already built.  Each maze size that has been
+ * asked for is kept topped up with a few ready mazes.
+ */
+public class MazePool implements AutoCloseable {
+    private record Size(int rows, int cols, float cellSize) {
+    }
+
+    private static class Slot {
+        final BlockingQueue<MazeCache.Entry> ready;
+        // Mazes being built for this size right now
+        final AtomicInteger pending = new AtomicInteger();
+
+        Slot(int depth) {
+            this.ready = new ArrayBlockingQueue<>(depth);
+        }
+    }
+
+    private final int depth;
+    private final Supplier<MazeGenerator> generator;
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<Size, Slot> slots = new ConcurrentHashMap<>();
+    private final SplittableRandom seeds = new SplittableRandom();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * @param depth     how many ready mazes to keep for each size
+     * @param generator makes the generator for each maze, generators keep state while
+     *                  they run so mazes built at the same time can't share one
+     */
+    public MazePool(int depth, Supplier<MazeGenerator> generator) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Pool depth must be at least 1");
+        }
+        this.depth = depth;
+        this.generator = generator;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Starts building mazes of the given size ahead of time.
+     */
+    public void prepare(int rows, int cols, float cellSize) {
+        Size size = new Size(rows, cols, cellSize);
+        fill(size, slot(size));
+    }
+
+    /**
+     * Hands out a solved maze of the given size.  If none is ready yet it is built on
+     * the calling thread, which counts as a miss.  Either way the pool starts building
+     * a replacement in the background.
+     */
+    public MazeCache.Entry take(int rows, int cols, float cellSize) {
+        Size size = new Size(rows, cols, cellSize);
+        Slot slot = slot(size);
+        MazeCache.Entry entry = slot.ready.poll();
+        if (entry != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            entry = build(size);
+        }
+        fill(size, slot);
+        return entry;
+    }
+
+    public int getHits() {return hits.get();}
+    public int getMisses() {return misses.get();}
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MazePool hits: %d misses: %d", hits.get(), misses.get());
+    }
+
+    private Slot slot(Size size) {
+        return slots.computeIfAbsent(size, key -> new Slot(depth));
+    }
+
+    private synchronized void fill(Size size, Slot slot) {
+        while (slot.ready.size() + slot.pending.get() < depth) {
+            slot.pending.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    slot.ready.offer(build(size));
+                } finally {
+                    slot.pending.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private MazeCache.Entry build(Size size) {
+        Maze maze = new Maze(size.rows(), size.cols(), size.cellSize(), generator.get(), nextSeed()).snapshot();
+        ShortestPath shortestPath = new ShortestPath(maze);
+        shortestPath.findShortestPath(size.rows() - 1, size.cols() - 1);
+        return new MazeCache.Entry(maze, shortestPath);
+    }
+
+    private synchronized long nextSeed() {
+        return seeds.nextLong();
+    }
+}
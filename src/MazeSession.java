@@ -0,0 +1,37 @@
+import java.util.Arrays;
+
+/**
+ * One run through a maze: which cells the player has been to.  It is kept apart
+ * from the maze, so the same maze, a snapshot in particular, can be played, solved
+ * and drawn by any number of sessions and threads at once.  A session itself
+ * belongs to one player and isn't meant to be shared between threads.
+ */
+public class MazeSession {
+    private final Maze maze;
+    // One bit per cell, row major
+    private final long[] visited;
+
+    public MazeSession(Maze maze) {
+        this.maze = maze;
+        this.visited = new long[(maze.getCellCount() + 63) >>> 6];
+    }
+
+    public Maze getMaze() {return maze;}
+
+    public boolean isVisited(int row, int col) {
+        int index = row * maze.getCols() + col;
+        return (visited[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public void setVisited(int row, int col) {
+        int index = row * maze.getCols() + col;
+        visited[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Forgets which cells the player has been to, so the maze can be played again.
+     */
+    public void clearVisited() {
+        Arrays.fill(visited, 0);
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+/**
+ * Answers distance and path questions between any two cells of a perfect maze
+ * without searching.  A perfect maze is a tree, so the path between two cells
+ * always runs up to their lowest common ancestor and back down.  The index is
+ * built once per maze, rooted at the top left cell.
+ *
+ * <p>Ancestors are found with jump pointers: every cell keeps its parent and one
+ * extra link further up, picked so that any ancestor is reachable in O(log n)
+ * hops.  That gives binary lifting's query time with three ints per cell instead
+ * of log n of them.
+ */
+public class MazeTree {
+    private final Maze maze;
+    private final int[] parents;
+    private final int[] jumps;
+    private final int[] depths;
+
+    public MazeTree(Maze maze) {
+        int cellCount = maze.getCellCount();
+        if (maze.countPassages() != cellCount - 1) {
+            throw new IllegalArgumentException("Only perfect mazes can be indexed as a tree");
+        }
+        this.maze = maze;
+        this.parents = new int[cellCount];
+        this.jumps = new int[cellCount];
+        this.depths = new int[cellCount];
+
+        // Breadth first from the root, so every parent is finished before its children
+        Arrays.fill(depths, -1);
+        int[] queue = new int[cellCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        parents[0] = 0;
+        jumps[0] = 0;
+        depths[0] = 0;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int wall : Maze.WALLS) {
+                if (maze.hasFlag(current, wall)) {
+                    continue;
+                }
+                int child = maze.neighbor(current, wall);
+                if (child < 0 || depths[child] >= 0) {
+                    continue;
+                }
+                parents[child] = current;
+                depths[child] = depths[current] + 1;
+                // Jump twice as far as the parent when its jump and its jump's jump
+                // cover the same distance, otherwise start over from the parent
+                int jump = jumps[current];
+                if (depths[current] - depths[jump] == depths[jump] - depths[jumps[jump]]) {
+                    jumps[child] = jumps[jump];
+                } else {
+                    jumps[child] = current;
+                }
+                queue[tail++] = child;
+            }
+        }
+        if (tail != cellCount) {
+            throw new IllegalArgumentException("Only perfect mazes can be indexed as a tree");
+        }
+    }
+
+    public int distance(Cell a, Cell b) {
+        return distance(index(a), index(b));
+    }
+
+    public int distance(int a, int b) {
+        return depths[a] + depths[b] - 2 * depths[lowestCommonAncestor(a, b)];
+    }
+
+    public int[] path(Cell a, Cell b) {
+        return path(index(a), index(b));
+    }
+
+    /**
+     * Returns the cell indices from a to b, both included.
+     */
+    public int[] path(int a, int b) {
+        int ancestor = lowestCommonAncestor(a, b);
+        int up = depths[a] - depths[ancestor];
+        int down = depths[b] - depths[ancestor];
+        int[] path = new int[up + down + 1];
+        int cell = a;
+        for (int i = 0; i <= up; i++, cell = parents[cell]) {
+            path[i] = cell;
+        }
+        cell = b;
+        for (int i = path.length - 1; i > up; i--, cell = parents[cell]) {
+            path[i] = cell;
+        }
+        return path;
+    }
+
+    public int lowestCommonAncestor(int a, int b) {
+        if (depths[a] > depths[b]) {
+            a = ancestorAtDepth(a, depths[b]);
+        } else if (depths[b] > depths[a]) {
+            b = ancestorAtDepth(b, depths[a]);
+        }
+        // Cells at the same depth have jumps of the same length, so they can move in step
+        while (a != b) {
+            if (jumps[a] != jumps[b]) {
+                a = jumps[a];
+                b = jumps[b];
+            } else {
+                a = parents[a];
+                b = parents[b];
+            }
+        }
+        return a;
+    }
+
+    private int ancestorAtDepth(int cell, int depth) {
+        while (depths[cell] > depth) {
+            cell = depths[jumps[cell]] >= depth ? jumps[cell] : parents[cell];
+        }
+        return cell;
+    }
+
+    private int index(Cell cell) {
+        return cell.getRow() * maze.getCols() + cell.getCol();
+    }
+}
@@ -0,0 +1,148 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Breadth first search that measures the distance from one cell to every other,
+ * expanding each level of the frontier across a fork-join pool.  Cells are claimed
+ * with a compare-and-set on their distance, so each is reached exactly once and the
+ * distances come out the same as a sequential search no matter how the work is
+ * split.  Small mazes and thin frontiers are handled on the calling thread, where
+ * the pool would only add overhead.
+ */
+public class ParallelBfs {
+    // Mazes with fewer cells than this are searched sequentially
+    static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    // Frontier cells handled by one task
+    static final int CHUNK = 4096;
+    private static final VarHandle DISTANCES = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final ForkJoinPool pool;
+
+    public ParallelBfs() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelBfs(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the number of steps from source to every cell, -1 for cells that can't
+     * be reached.
+     */
+    public int[] distancesFrom(Maze maze, int source) {
+        if (maze.getCellCount() < SEQUENTIAL_THRESHOLD || pool.getParallelism() < 2) {
+            return sequentialDistancesFrom(maze, source);
+        }
+        return new Search(maze, source).run();
+    }
+
+    static int[] sequentialDistancesFrom(Maze maze, int source) {
+        int cellCount = maze.getCellCount();
+        int[] distances = new int[cellCount];
+        Arrays.fill(distances, -1);
+        distances[source] = 0;
+        // Every cell is queued at most once, so the queue never has to wrap around
+        int[] queue = new int[cellCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int wall : Maze.WALLS) {
+                if (maze.hasFlag(current, wall)) {
+                    continue;
+                }
+                int neighbor = maze.neighbor(current, wall);
+                if (neighbor >= 0 && distances[neighbor] < 0) {
+                    distances[neighbor] = distances[current] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return distances;
+    }
+
+    private class Search {
+        private final Maze maze;
+        private final int[] distances;
+        private int[] frontier;
+        private int frontierSize;
+        private int[] next;
+        private final AtomicInteger nextSize = new AtomicInteger();
+        private int level;
+
+        Search(Maze maze, int source) {
+            this.maze = maze;
+            int cellCount = maze.getCellCount();
+            this.distances = new int[cellCount];
+            Arrays.fill(distances, -1);
+            distances[source] = 0;
+            // Each cell joins a frontier once, so the two buffers can never overflow
+            this.frontier = new int[cellCount];
+            this.next = new int[cellCount];
+            frontier[0] = source;
+            frontierSize = 1;
+        }
+
+        int[] run() {
+            while (frontierSize > 0) {
+                nextSize.set(0);
+                Expand expand = new Expand(0, frontierSize);
+                if (frontierSize <= CHUNK) {
+                    expand.compute();
+                } else {
+                    pool.invoke(expand);
+                }
+                int[] swap = frontier;
+                frontier = next;
+                next = swap;
+                frontierSize = nextSize.get();
+                level++;
+            }
+            return distances;
+        }
+
+        @SuppressWarnings("serial")
+        private class Expand extends RecursiveAction {
+            private final int from;
+            private final int to;
+
+            Expand(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > CHUNK) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Expand(from, middle), new Expand(middle, to));
+                    return;
+                }
+                // Collect locally, then reserve room in the next frontier with one atomic add
+                int[] found = new int[4 * (to - from)];
+                int count = 0;
+                int distance = level + 1;
+                for (int i = from; i < to; i++) {
+                    int current = frontier[i];
+                    for (int wall : Maze.WALLS) {
+                        if (maze.hasFlag(current, wall)) {
+                            continue;
+                        }
+                        int neighbor = maze.neighbor(current, wall);
+                        if (neighbor >= 0 && distances[neighbor] < 0
+                                && DISTANCES.compareAndSet(distances, neighbor, -1, distance)) {
+                            found[count++] = neighbor;
+                        }
+                    }
+                }
+                System.arraycopy(found, 0, next, nextSize.getAndAdd(count), count);
+            }
+        }
+    }
+}
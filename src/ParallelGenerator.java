@@ -0,0 +1,99 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates big mazes on a fork-join pool using recursive division.  The grid is
+ * split in half along its longer side until the pieces are no bigger than a tile,
+ * each tile is carved on its own by another generator, and then every split is
+ * stitched back together through a single opening.  Joining two perfect mazes
+ * through exactly one opening gives another perfect maze, so the whole thing
+ * stays solvable by exactly one path.
+ */
+public class ParallelGenerator implements MazeGenerator {
+    private static final int DEFAULT_TILE_SIZE = 256;
+
+    private final Supplier<MazeGenerator> tileGenerator;
+    private final int tileSize;
+    private final ForkJoinPool pool;
+
+    public ParallelGenerator() {
+        this(PrimGenerator::new, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param tileGenerator makes a generator for each tile, generators keep state
+     *                      while they run so tiles can't share one
+     * @param tileSize      largest width and height of a tile carved in one piece
+     * @param pool          pool the tiles are generated on
+     */
+    public ParallelGenerator(Supplier<MazeGenerator> tileGenerator, int tileSize, ForkJoinPool pool) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be at least 1");
+        }
+        this.tileGenerator = tileGenerator;
+        this.tileSize = tileSize;
+        this.pool = pool;
+    }
+
+    @Override
+    public void generate(Maze maze, RandomGenerator rand) {
+        // Every region gets its own random stream split off its parent before anything
+        // is forked, so the result doesn't depend on how the pool schedules the work
+        SplittableRandom random = new SplittableRandom(rand.nextLong());
+        pool.invoke(new Region(maze, 0, 0, maze.getRows(), maze.getCols(), random));
+        // Regions carve without touching the wall version, one bump covers them all
+        maze.wallsChanged();
+    }
+
+    @Override
+    public String getName() {
+        return "Parallel(" + tileGenerator.get().getName() + ", " + tileSize + ")";
+    }
+
+    @SuppressWarnings("serial")
+    private class Region extends RecursiveAction {
+        private final Maze maze;
+        private final int top;
+        private final int left;
+        private final int rows;
+        private final int cols;
+        private final SplittableRandom random;
+
+        Region(Maze maze, int top, int left, int rows, int cols, SplittableRandom random) {
+            this.maze = maze;
+            this.top = top;
+            this.left = left;
+            this.rows = rows;
+            this.cols = cols;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (rows <= tileSize && cols <= tileSize) {
+                // Tiles only touch their own cells, so they can be copied in concurrently
+                Maze tile = new Maze(rows, cols, maze.getCellSize(), tileGenerator.get(), random.split());
+                maze.copyWalls(tile, top, left);
+                return;
+            }
+
+            if (rows >= cols) {
+                int half = rows / 2;
+                invokeAll(new Region(maze, top, left, half, cols, random.split()),
+                        new Region(maze, top + half, left, rows - half, cols, random.split()));
+                // open one wall along the split to join the two halves
+                int col = left + random.nextInt(cols);
+                maze.openWall((top + half - 1) * maze.getCols() + col, Maze.WALL_DOWN);
+            } else {
+                int half = cols / 2;
+                invokeAll(new Region(maze, top, left, rows, half, random.split()),
+                        new Region(maze, top, left + half, rows, cols - half, random.split()));
+                int row = top + random.nextInt(rows);
+                maze.openWall(row * maze.getCols() + left + half - 1, Maze.WALL_RIGHT);
+            }
+        }
+    }
+}
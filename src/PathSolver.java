@@ -0,0 +1,35 @@
+/**
+ * Finds a shortest path between two cells of a {@link Maze}.  Solvers keep their
+ * working arrays between calls so repeated queries on the same maze don't pay to
+ * allocate or clear them, which also means a solver should only be used by one
+ * thread at a time.
+ */
+public interface PathSolver {
+    /**
+     * Returns the cell indices of a shortest path from start to goal, both included,
+     * or an empty array if goal can't be reached.
+     */
+    int[] solve(Maze maze, int start, int goal);
+
+    default int[] solve(Maze maze, Cell start, Cell goal) {
+        int cols = maze.getCols();
+        return solve(maze, start.getRow() * cols + start.getCol(), goal.getRow() * cols + goal.getCol());
+    }
+
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Picks a solver by name, so which one to use can be decided at runtime.
+     */
+    static PathSolver forName(String name) {
+        return switch (name.toLowerCase()) {
+            case "bfs" -> new BfsSolver();
+            case "bidirectional" -> new BidirectionalBfsSolver();
+            case "astar", "a*" -> new AStarSolver();
+            case "bitboard" -> new BitboardSolver();
+            default -> throw new IllegalArgumentException("Unknown path solver: " + name);
+        };
+    }
+}
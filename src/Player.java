@@ -1,7 +1,7 @@
 import edu.usu.graphics.Rectangle;
 
 public class Player {
-    private final Maze maze;
+    private final MazeLayout maze;
     private int row;
     private int col;
     private final int maxRow;
@@ -11,7 +11,7 @@ public class Player {
     private final float playerLeft;
     private final float playerTop;
 
-    public Player(int row, int col, Maze maze) {
+    public Player(int row, int col, MazeLayout maze) {
         this.row = row;
         this.col = col;
         this.maze = maze;
@@ -21,7 +21,7 @@ public class Player {
         float playerSize = this.cellSize * (30 / 48f);
         this.playerLeft = -0.5f + ((cellSize-playerSize)/2);
         this.playerTop = -0.5f + ((cellSize-playerSize)/2);
-        float top = playerTop + row * playerSize;
+        float top = playerTop + (row - maze.getFirstRow()) * playerSize;
         float left = playerLeft + col * playerSize;
         this.playerRec = new Rectangle(left, top, playerSize, playerSize, 0.2f);
     }
@@ -29,19 +29,24 @@ public class Player {
     public int getRow() {return row;}
     public int getCol() {return col;}
 
-    public Rectangle getRect() {return this.playerRec;}
+    /**
+     * Returns where to draw the player.  Layouts that scroll may have moved their
+     * first row since the last move, so the top is worked out from it every time.
+     */
+    public Rectangle getRect() {
+        playerRec.top = playerTop + (this.row - maze.getFirstRow()) * cellSize;
+        return this.playerRec;
+    }
 
     public void moveUp(float distance) {
         if (this.row > 0 && maze.wallNotExists(this.row, this.col, "up")) {
             this.row--;
-            playerRec.top = playerTop + this.row  * cellSize;
         }
     }
 
     public void moveDown(float distance) {
         if (this.row < this.maxRow - 1 && maze.wallNotExists(this.row, this.col, "down")) {
             this.row++;
-            playerRec.top = playerTop + this.row  * cellSize;
         }
     }
 
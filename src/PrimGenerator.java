@@ -0,0 +1,82 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Randomized Prim's algorithm.  Grows the maze out from a random cell, always
+ * joining a random frontier cell onto the part already carved.
+ */
+public class PrimGenerator implements MazeGenerator {
+    private static final byte IN_FRONTIER = 1;
+    private static final byte IN_MAZE = 2;
+
+    private Maze maze;
+    private RandomGenerator rand;
+    // Which cells are in the maze or on the frontier, kept here rather than on the maze
+    private byte[] state;
+    // Cell indices currently on the frontier, only the first frontierSize entries are in use
+    private int[] frontier;
+    private int frontierSize;
+    // Reused by removeWall so generation doesn't allocate per step
+    private final int[] wallScratch = new int[4];
+
+    @Override
+    public void generate(Maze maze, RandomGenerator rand) {
+        this.maze = maze;
+        this.rand = rand;
+        this.frontier = new int[maze.getCellCount()];
+        this.frontierSize = 0;
+        this.state = new byte[maze.getCellCount()];
+        // randomly pick a cell and add it to the maze
+        int firstCell = rand.nextInt(maze.getCellCount());
+        state[firstCell] = IN_MAZE;
+        // add its neighboring cells to the frontier
+        updateFrontier(firstCell);
+        while (frontierSize > 0) {
+            // randomly choose a cell in the frontier and take it out of the frontier
+            int randomFrontier = removeRandomFrontier();
+            // randomly choose a wall that connects to a cell in the maze and remove it
+            removeWall(randomFrontier);
+            // add the cell to the maze
+            state[randomFrontier] = IN_MAZE;
+            // update the frontier
+            updateFrontier(randomFrontier);
+        }
+        this.frontier = null;
+        this.state = null;
+        this.maze = null;
+    }
+
+    private void updateFrontier(int selectedCell) {
+        for (int wall : Maze.WALLS) {
+            int neighbor = maze.neighbor(selectedCell, wall);
+            if (neighbor >= 0 && state[neighbor] == 0) {
+                frontier[frontierSize++] = neighbor;
+                state[neighbor] = IN_FRONTIER;
+            }
+        }
+    }
+
+    private void removeWall(int frontierCell) {
+        // collect the neighbors that are already in the maze
+        int inMaze = 0;
+        for (int wall : Maze.WALLS) {
+            int neighbor = maze.neighbor(frontierCell, wall);
+            if (neighbor >= 0 && state[neighbor] == IN_MAZE) {
+                wallScratch[inMaze] = wall;
+                inMaze++;
+            }
+        }
+        // pick a random neighbor
+        maze.removeWall(frontierCell, wallScratch[rand.nextInt(inMaze)]);
+    }
+
+    /**
+     * Picks a random frontier cell and swaps the last frontier entry into its slot,
+     * so removal doesn't have to shift the rest of the frontier.
+     */
+    private int removeRandomFrontier() {
+        int randomIndex = rand.nextInt(frontierSize);
+        int selectedCell = frontier[randomIndex];
+        frontier[randomIndex] = frontier[--frontierSize];
+        return selectedCell;
+    }
+}
@@ -1,58 +1,192 @@
-import java.util.*;
+import java.util.BitSet;
 
+/**
+ * Solves a maze once by measuring how far every cell is from the end.  With that
+ * distance field the next step toward the end from any cell is simply the open
+ * neighbor one step closer, so hints never depend on how the player got there.
+ *
+ * <p>When a wall changes after solving, {@link #wallChanged} repairs the field in
+ * the manner of LPA*: only cells whose distance no longer agrees with their
+ * neighbors are queued, nearest first, so the work grows with the number of cells
+ * whose distance really changed rather than with the board.
+ */
 public class ShortestPath {
+    // Shared by default, it holds no state of its own between searches
+    private static final ParallelBfs DEFAULT_BFS = new ParallelBfs();
+    // Distance of cells that can't reach the end while repairing, -1 in distances
+    private static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+
     private final Maze maze;
-    private final Queue<Cell> queue;
-    private final Set<Cell> visited;
-    private final Stack<Cell> stack;
+    private final ParallelBfs bfs;
+    // Steps from each cell to the end, -1 for cells that can't reach it
+    private int[] distances;
+    // Cell indices of the solved path, from the start through to the end
+    private int[] path;
+    // The same cells as a set, one bit per cell
+    private BitSet onPath;
+    private int end;
+    // Copies share the distances and path until one of them has to repair them
+    private boolean ownsDistances;
+    private LongHeap inconsistent;
 
     public ShortestPath(Maze maze) {
+        this(maze, DEFAULT_BFS);
+    }
+
+    /**
+     * Solves with the given search, which decides which pool big mazes are solved on.
+     */
+    public ShortestPath(Maze maze, ParallelBfs bfs) {
         this.maze = maze;
-        this.queue = new LinkedList<Cell>();
-        this.visited = new HashSet<Cell>();
-        this.stack = new Stack<>();;
+        this.bfs = bfs;
+        this.distances = new int[0];
+        this.path = new int[0];
+        this.onPath = new BitSet();
     }
 
-    public Stack<Cell> getShortestPathStack() {return stack;}
+    /**
+     * Copies an already solved path so it can be used again without solving it again.
+     * The copy shares the solution until either of them has a wall change to repair.
+     */
+    public ShortestPath(ShortestPath other) {
+        this.maze = other.maze;
+        this.bfs = other.bfs;
+        this.distances = other.distances;
+        this.path = other.path;
+        this.onPath = other.onPath;
+        this.end = other.end;
+        other.ownsDistances = false;
+    }
 
-    public Cell getHint() {return stack.peek();}
+    public int[] getPath() {return path;}
 
-    public void updateShortestPathStack(Cell cell, Cell previousCell) {
-        if (cell == maze.getCell(maze.getRows()-1, maze.getCols()-1)) {
-            return;
-        }
-        if (cell == stack.peek()) {
-            stack.pop();
-        } else if (cell != stack.peek()) {
-            stack.push(previousCell);
-        }
+    public int getDistance(int row, int col) {return distances[row * maze.getCols() + col];}
+
+    public boolean isOnPath(int row, int col) {return onPath.get(row * maze.getCols() + col);}
+
+    /**
+     * Returns the next cell to move to from the given one on the way to the end, or
+     * the cell itself if it is the end or can't reach it.
+     */
+    public Cell getHint(Cell from) {
+        return maze.getCell(next(from.getRow() * maze.getCols() + from.getCol()));
     }
 
     public void findShortestPath(int endRow, int endCol) {
-        queue.add(maze.getCell(0,0));
-        visited.add(maze.getCell(0,0));
-        while (!queue.isEmpty()) {
-            Cell current = queue.poll();
-            if (current.getRow() == endRow && current.getCol() == endCol) {
-                Cell currentCell = this.maze.getCell(maze.getRows()-1, maze.getCols()-1);
-                while (currentCell != null) {
-                    currentCell.setOnShortestPath(true);
-                    stack.push(currentCell);
-                    currentCell = currentCell.getParent();
-                }
-                stack.pop();
-                return;
+        end = endRow * maze.getCols() + endCol;
+        distances = bfs.distancesFrom(maze, end);
+        onPath = new BitSet(maze.getCellCount());
+        ownsDistances = true;
+        tracePath();
+    }
+
+    /**
+     * Brings the distances, hints and path up to date after the given wall of a cell
+     * was put up or taken down on the maze.
+     */
+    public void wallChanged(int row, int col, int wall) {
+        if (distances.length == 0) {
+            return;
+        }
+        if (!ownsDistances) {
+            distances = distances.clone();
+            onPath = (BitSet) onPath.clone();
+            ownsDistances = true;
+        }
+        if (inconsistent == null) {
+            inconsistent = new LongHeap();
+        }
+        int index = row * maze.getCols() + col;
+        queueIfInconsistent(index);
+        queueIfInconsistent(maze.neighbor(index, wall));
+        while (!inconsistent.isEmpty()) {
+            long entry = inconsistent.pop();
+            int cell = LongHeap.index(entry);
+            int distance = distanceOf(cell);
+            int best = bestThroughNeighbors(cell);
+            if (distance == best || Math.min(distance, best) != LongHeap.priority(entry)) {
+                // settled since, or queued again with a different key
+                continue;
+            }
+            if (distance > best) {
+                distances[cell] = best;
+            } else {
+                // The route it had is gone, so it starts over from whatever its neighbors offer
+                distances[cell] = -1;
+                queueIfInconsistent(cell);
             }
-            ArrayList<Cell> neighbors = current.reachableNeighbors(this.maze.getGrid());
-            for (Cell neighbor : neighbors) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    neighbor.setParent(current);
-                    queue.add(neighbor);
+            for (int side : Maze.WALLS) {
+                int neighbor = maze.neighbor(cell, side);
+                if (neighbor >= 0 && !maze.hasFlag(cell, side)) {
+                    queueIfInconsistent(neighbor);
                 }
             }
         }
 
+        for (int cell : path) {
+            onPath.clear(cell);
+        }
+        path = new int[0];
+        tracePath();
+    }
+
+    private void tracePath() {
+        int start = 0;
+        if (distances[start] < 0) {
+            return;
+        }
+
+        path = new int[distances[start] + 1];
+        for (int i = 0, cell = start; i < path.length; i++, cell = next(cell)) {
+            path[i] = cell;
+            onPath.set(cell);
+        }
+    }
+
+    private void queueIfInconsistent(int cell) {
+        int distance = distanceOf(cell);
+        int best = bestThroughNeighbors(cell);
+        if (distance != best) {
+            inconsistent.push(Math.min(distance, best), cell);
+        }
+    }
+
+    private int distanceOf(int cell) {
+        return distances[cell] < 0 ? UNREACHABLE : distances[cell];
+    }
+
+    /**
+     * The distance the cell would have going through its best open neighbor.
+     */
+    private int bestThroughNeighbors(int cell) {
+        if (cell == end) {
+            return 0;
+        }
+        int best = UNREACHABLE;
+        for (int wall : Maze.WALLS) {
+            int neighbor = maze.neighbor(cell, wall);
+            if (neighbor >= 0 && !maze.hasFlag(cell, wall)) {
+                best = Math.min(best, distanceOf(neighbor) + 1);
+            }
+        }
+        return Math.min(best, UNREACHABLE);
+    }
+
+    private int next(int index) {
+        int distance = distances[index];
+        if (distance <= 0) {
+            return index;
+        }
+        for (int wall : Maze.WALLS) {
+            if (maze.hasFlag(index, wall)) {
+                continue;
+            }
+            int neighbor = maze.neighbor(index, wall);
+            if (neighbor >= 0 && distances[neighbor] == distance - 1) {
+                return neighbor;
+            }
+        }
+        return index;
     }
 
 }
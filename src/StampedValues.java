@@ -0,0 +1,52 @@
+import java.util.Arrays;
+
+/**
+ * One int per cell that can be wiped between searches in constant time.  Each
+ * entry remembers the generation it was written in, and only entries from the
+ * current generation count as present.
+ */
+class StampedValues {
+    private int[] stamps = new int[0];
+    private int[] values = new int[0];
+    private int generation;
+
+    /**
+     * Forgets every value, growing the storage if the maze got bigger.
+     */
+    void reset(int size) {
+        if (stamps.length < size) {
+            stamps = new int[size];
+            values = new int[size];
+            generation = 0;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    boolean contains(int index) {return stamps[index] == generation;}
+
+    int get(int index) {return values[index];}
+
+    void put(int index, int value) {
+        stamps[index] = generation;
+        values[index] = value;
+    }
+
+    /**
+     * Treating the values as parent links, returns the cells from index back to the
+     * root, which is the cell that is its own parent.
+     */
+    int[] chainFrom(int index) {
+        int length = 1;
+        for (int cell = index; values[cell] != cell; cell = values[cell]) {
+            length++;
+        }
+        int[] chain = new int[length];
+        for (int i = 0, cell = index; i < length; i++, cell = values[cell]) {
+            chain[i] = cell;
+        }
+        return chain;
+    }
+}
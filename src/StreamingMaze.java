@@ -0,0 +1,110 @@
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A maze with no bottom.  Rows are pulled from an {@link EllerRowStream} and only
+ * windowRows of them are kept, so memory stays flat no matter how far down the
+ * player travels.
+ *
+ * <p>The rows come in segments of windowRows / 2, each ending in a checkpoint row
+ * that joins everything above it and leads down through a single passage.  Nothing
+ * below a checkpoint needs the rows above it to stay connected, so once the player
+ * has gone down through one the segment above is dropped.  The window only moves
+ * when {@link #advanceTo} is told where the player is; looking at walls never
+ * changes it.  Rows outside the window behave as if walled off.
+ */
+public final class StreamingMaze implements MazeLayout {
+    private final EllerRowStream stream;
+    private final int cols;
+    private final int windowRows;
+    private final int segmentRows;
+    private final float cellSize;
+    // Ring buffer of the rows in the window, row r lives at (r % windowRows) * cols
+    private final byte[] window;
+    private final byte[] rowScratch;
+    private int firstRow;
+    // Bumped every time the window moves, so anything drawn from it can tell it is stale
+    private int windowVersion;
+
+    public StreamingMaze(int cols, int windowRows, float cellSize) {
+        this(cols, windowRows, cellSize, new SplittableRandom());
+    }
+
+    public StreamingMaze(int cols, int windowRows, float cellSize, RandomGenerator rand) {
+        if (windowRows < 2) {
+            throw new IllegalArgumentException("Window must hold at least two rows");
+        }
+        this.stream = new EllerRowStream(cols, rand);
+        this.cols = cols;
+        this.windowRows = windowRows;
+        this.segmentRows = windowRows / 2;
+        this.cellSize = cellSize;
+        this.window = new byte[windowRows * cols];
+        this.rowScratch = new byte[cols];
+        fillWindow();
+    }
+
+    @Override
+    public int getRows() {return Integer.MAX_VALUE;}
+    @Override
+    public int getCols() {return cols;}
+    @Override
+    public float getCellSize() {return cellSize;}
+    @Override
+    public int getFirstRow() {return firstRow;}
+    @Override
+    public int getLastRow() {return stream.getRowsEmitted() - 1;}
+    @Override
+    public int getWallVersion() {return windowVersion;}
+
+    /**
+     * Moves the window along with the player, who is now on the given row.  The
+     * window starts at the segment the player is in and is filled up with rows
+     * below, so the player always has at least windowRows / 2 rows ahead.
+     */
+    public void advanceTo(int row) {
+        if (row < firstRow || row > getLastRow()) {
+            throw new IllegalArgumentException("Row " + row + " is outside the window");
+        }
+        int segmentStart = row - row % segmentRows;
+        if (segmentStart != firstRow) {
+            firstRow = segmentStart;
+            fillWindow();
+            windowVersion++;
+        }
+    }
+
+    @Override
+    public boolean wallNotExists(int row, int col, String direction) {
+        if (row < firstRow || row > getLastRow()) {
+            return false;
+        }
+        return switch (direction) {
+            case "up" -> row - 1 >= firstRow && !hasWall(row, col, Maze.WALL_UP);
+            case "down" -> row + 1 <= getLastRow() && !hasWall(row, col, Maze.WALL_DOWN);
+            case "left" -> !hasWall(row, col, Maze.WALL_LEFT);
+            case "right" -> !hasWall(row, col, Maze.WALL_RIGHT);
+            default -> false;
+        };
+    }
+
+    @Override
+    public boolean hasWall(int row, int col, int wall) {
+        return (window[(row % windowRows) * cols + col] & wall) != 0;
+    }
+
+    /**
+     * Pulls rows until the window is full, overwriting only rows above firstRow.
+     */
+    private void fillWindow() {
+        while (getLastRow() < firstRow + windowRows - 1) {
+            int next = stream.getRowsEmitted();
+            if ((next + 1) % segmentRows == 0) {
+                stream.nextCheckpointRow(rowScratch);
+            } else {
+                stream.nextRow(rowScratch, false);
+            }
+            System.arraycopy(rowScratch, 0, window, (next % windowRows) * cols, cols);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * A maze stored on disk in square tiles, for mazes far too big to hold in memory.
+ * Tiles are memory mapped only when a cell inside them is looked at, and only the
+ * most recently used ones are kept.  Every lookup reorders the tiles it keeps, even
+ * a read, so a file should only be used by one thread at a time.
+ *
+ * <p>File layout, all values big endian:
+ * <pre>
+ *   int  magic ("MAZT")
+ *   int  version
+ *   int  rows
+ *   int  cols
+ *   int  tileSize
+ *   long tile offsets, one per tile in row major order
+ *   tile data
+ * </pre>
+ * Each tile holds tileSize x tileSize cells in row major order, two bits per cell:
+ * the low bit is the down wall and the high bit the right wall.  The up and left
+ * walls are read from the neighbor above and to the left, so every wall is stored
+ * once.  Tiles on the right and bottom edges are padded out to full size.
+ */
+public class TiledMazeFile implements MazeLayout, AutoCloseable {
+    private static final int MAGIC = 0x4D415A54;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+    private static final int DOWN_BIT = 1;
+    private static final int RIGHT_BIT = 2;
+    private static final int DEFAULT_TILE_SIZE = 256;
+    // Keeps the bytes of one tile within what a single mapping can hold
+    private static final int MAX_TILE_SIZE = 1 << 15;
+    private static final int MAPPED_TILES = 256;
+
+    /**
+     * Supplies the walls of a maze one row at a time, using the wall bits from {@link Maze}.
+     */
+    public interface RowSource {
+        void row(int row, byte[] walls);
+    }
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int cols;
+    private final int tileSize;
+    private final int tilesAcross;
+    private final long[] tileOffsets;
+    private final float cellSize;
+    // Least recently used tiles are dropped once there are too many.  That only lets go
+    // of the buffer, the mapping itself stays until the garbage collector frees it
+    private final LinkedHashMap<Integer, MappedByteBuffer> mappedTiles;
+
+    private TiledMazeFile(FileChannel channel, float cellSize) throws IOException {
+        this.channel = channel;
+        this.cellSize = cellSize;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a tiled maze file");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported tiled maze version " + version);
+        }
+        this.rows = header.getInt();
+        this.cols = header.getInt();
+        this.tileSize = header.getInt();
+        // Held to the same limits write() puts on what it is given
+        if (rows < 1 || cols < 1 || !validTileSize(tileSize)) {
+            throw new IOException("Corrupt tiled maze header");
+        }
+        long tileCount = (long) tilesAlong(rows, tileSize) * tilesAlong(cols, tileSize);
+        if (tileCount * Long.BYTES > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt tiled maze header");
+        }
+        this.tilesAcross = tilesAlong(cols, tileSize);
+
+        ByteBuffer index = ByteBuffer.allocate((int) tileCount * Long.BYTES);
+        readFully(index, HEADER_BYTES);
+        this.tileOffsets = new long[(int) tileCount];
+        index.asLongBuffer().get(tileOffsets);
+        long size = channel.size();
+        for (int tile = 0; tile < tileOffsets.length; tile++) {
+            if (tileOffsets[tile] < 0 || tileOffsets[tile] > size - tileBytes(tileSize)) {
+                throw new IOException("Tile " + tile + " lies outside the tiled maze file");
+            }
+        }
+
+        this.mappedTiles = new LinkedHashMap<>(MAPPED_TILES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, MappedByteBuffer> eldest) {
+                return size() > MAPPED_TILES;
+            }
+        };
+    }
+
+    /**
+     * Opens a tiled maze file for reading.  Only the header and tile index are read
+     * up front.
+     */
+    public static TiledMazeFile open(Path path, float cellSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new TiledMazeFile(channel, cellSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Saves a maze that is already in memory.
+     */
+    public static void write(Path path, Maze maze) throws IOException {
+        write(path, maze.getRows(), maze.getCols(), DEFAULT_TILE_SIZE, (row, walls) -> {
+            for (int col = 0; col < maze.getCols(); col++) {
+                walls[col] = (byte) ((maze.hasWall(row, col, Maze.WALL_DOWN) ? Maze.WALL_DOWN : 0)
+                        | (maze.hasWall(row, col, Maze.WALL_RIGHT) ? Maze.WALL_RIGHT : 0));
+            }
+        });
+    }
+
+    /**
+     * Generates a maze straight to disk with Eller's algorithm.  Only one band of
+     * tiles is ever held in memory, so this works for mazes far bigger than the heap.
+     */
+    public static void generate(Path path, int rows, int cols, int tileSize, long seed) throws IOException {
+        EllerRowStream stream = new EllerRowStream(cols, new SplittableRandom(seed));
+        write(path, rows, cols, tileSize, (row, walls) -> stream.nextRow(walls, row == rows - 1));
+    }
+
+    /**
+     * Writes a maze whose rows come from source, in order from the top.
+     */
+    public static void write(Path path, int rows, int cols, int tileSize, RowSource source) throws IOException {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("A maze needs at least one row and one column");
+        }
+        if (!validTileSize(tileSize)) {
+            throw new IllegalArgumentException("Tile size must be a multiple of 4 from 4 to " + MAX_TILE_SIZE);
+        }
+        int tilesDown = tilesAlong(rows, tileSize);
+        int tilesAcross = tilesAlong(cols, tileSize);
+        if ((long) tilesDown * tilesAcross * Long.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many tiles, use a bigger tile size");
+        }
+        int tileBytes = tileBytes(tileSize);
+        long dataStart = HEADER_BYTES + (long) tilesDown * tilesAcross * Long.BYTES;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(tileSize).flip();
+            writeFully(channel, header, 0);
+
+            // Tiles are all the same size, so the index is known before any are written
+            ByteBuffer index = ByteBuffer.allocate(tilesAcross * Long.BYTES);
+            for (int tileRow = 0; tileRow < tilesDown; tileRow++) {
+                index.clear();
+                for (int tileCol = 0; tileCol < tilesAcross; tileCol++) {
+                    index.putLong(dataStart + ((long) tileRow * tilesAcross + tileCol) * tileBytes);
+                }
+                index.flip();
+                writeFully(channel, index, HEADER_BYTES + (long) tileRow * tilesAcross * Long.BYTES);
+            }
+
+            // Fill one band of tiles from tileSize rows at a time, then write it out
+            byte[] walls = new byte[cols];
+            byte[] band = new byte[tilesAcross * tileBytes];
+            for (int tileRow = 0; tileRow < tilesDown; tileRow++) {
+                Arrays.fill(band, (byte) 0);
+                int bandRows = Math.min(tileSize, rows - tileRow * tileSize);
+                for (int localRow = 0; localRow < bandRows; localRow++) {
+                    source.row(tileRow * tileSize + localRow, walls);
+                    for (int col = 0; col < cols; col++) {
+                        int bits = ((walls[col] & Maze.WALL_DOWN) != 0 ? DOWN_BIT : 0)
+                                | ((walls[col] & Maze.WALL_RIGHT) != 0 ? RIGHT_BIT : 0);
+                        int cell = localRow * tileSize + col % tileSize;
+                        int offset = (col / tileSize) * tileBytes + (cell >> 2);
+                        band[offset] |= (byte) (bits << ((cell & 3) << 1));
+                    }
+                }
+                writeFully(channel, ByteBuffer.wrap(band), dataStart + (long) tileRow * tilesAcross * tileBytes);
+            }
+        }
+    }
+
+    @Override
+    public int getRows() {return rows;}
+    @Override
+    public int getCols() {return cols;}
+    @Override
+    public float getCellSize() {return cellSize;}
+
+    // Opened read only, its walls never change
+    @Override
+    public int getWallVersion() {return 0;}
+
+    public long getCellCount() {return (long) rows * cols;}
+
+    @Override
+    public boolean wallNotExists(int row, int col, String direction) {
+        return !switch (direction) {
+            case "up" -> hasWall(row, col, Maze.WALL_UP);
+            case "down" -> hasWall(row, col, Maze.WALL_DOWN);
+            case "left" -> hasWall(row, col, Maze.WALL_LEFT);
+            case "right" -> hasWall(row, col, Maze.WALL_RIGHT);
+            default -> false;
+        };
+    }
+
+    @Override
+    public boolean hasWall(int row, int col, int wall) {
+        return switch (wall) {
+            case Maze.WALL_UP -> row == 0 || (bits(row - 1, col) & DOWN_BIT) != 0;
+            case Maze.WALL_DOWN -> row == rows - 1 || (bits(row, col) & DOWN_BIT) != 0;
+            case Maze.WALL_LEFT -> col == 0 || (bits(row, col - 1) & RIGHT_BIT) != 0;
+            case Maze.WALL_RIGHT -> col == cols - 1 || (bits(row, col) & RIGHT_BIT) != 0;
+            default -> true;
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        mappedTiles.clear();
+        channel.close();
+    }
+
+    private int bits(int row, int col) {
+        MappedByteBuffer tile = tile((row / tileSize) * tilesAcross + col / tileSize);
+        int cell = (row % tileSize) * tileSize + col % tileSize;
+        return (tile.get(cell >> 2) >> ((cell & 3) << 1)) & 3;
+    }
+
+    private MappedByteBuffer tile(int tileIndex) {
+        MappedByteBuffer tile = mappedTiles.get(tileIndex);
+        if (tile == null) {
+            try {
+                tile = channel.map(FileChannel.MapMode.READ_ONLY, tileOffsets[tileIndex], tileBytes(tileSize));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to map maze tile " + tileIndex, e);
+            }
+            mappedTiles.put(tileIndex, tile);
+        }
+        return tile;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of tiled maze file");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static boolean validTileSize(int tileSize) {
+        return tileSize >= 4 && tileSize <= MAX_TILE_SIZE && tileSize % 4 == 0;
+    }
+
+    private static int tilesAlong(int cells, int tileSize) {
+        return (int) (((long) cells + tileSize - 1) / tileSize);
+    }
+
+    private static int tileBytes(int tileSize) {
+        return tileSize * tileSize / 4;
+    }
+}
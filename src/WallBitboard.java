@@ -0,0 +1,50 @@
+/**
+ * Bit-packed copy of the walls of a {@link Maze}, one bit per cell in rows of
+ * {@code long} words, so a search can test or move 64 cells at a time.  A set bit
+ * in {@code openRight} means the cell and the one to its right are joined, a set
+ * bit in {@code openDown} joins it to the one below.  Left and up openings are the
+ * same bits read from the neighbor, so they aren't stored twice.
+ *
+ * <p>This is a snapshot, walls changed on the maze afterwards are not seen.
+ */
+public final class WallBitboard {
+    private final int rows;
+    private final int cols;
+    private final int wordsPerRow;
+    private final long[] openRight;
+    private final long[] openDown;
+
+    public WallBitboard(Maze maze) {
+        this.rows = maze.getRows();
+        this.cols = maze.getCols();
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.openRight = new long[rows * wordsPerRow];
+        this.openDown = new long[rows * wordsPerRow];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int index = row * cols + col;
+                int word = wordIndex(row, col);
+                long bit = 1L << col;
+                // Outside walls are never open, so no bit ever points off the board
+                if (col + 1 < cols && !maze.hasFlag(index, Maze.WALL_RIGHT)) {
+                    openRight[word] |= bit;
+                }
+                if (row + 1 < rows && !maze.hasFlag(index, Maze.WALL_DOWN)) {
+                    openDown[word] |= bit;
+                }
+            }
+        }
+    }
+
+    public int getRows() {return rows;}
+    public int getCols() {return cols;}
+    public int getWordsPerRow() {return wordsPerRow;}
+
+    long[] getOpenRight() {return openRight;}
+    long[] getOpenDown() {return openDown;}
+
+    int wordIndex(int row, int col) {return row * wordsPerRow + (col >>> 6);}
+
+    boolean isOpenRight(int row, int col) {return (openRight[wordIndex(row, col)] & (1L << col)) != 0;}
+    boolean isOpenDown(int row, int col) {return (openDown[wordIndex(row, col)] & (1L << col)) != 0;}
+}
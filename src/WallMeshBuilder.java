@@ -0,0 +1,77 @@
+import edu.usu.graphics.Color;
+import edu.usu.graphics.MeshBuilder;
+
+/**
+ * Lays out the walls of a maze as rectangles for a retained mesh, so they are
+ * built once per maze rather than every frame.
+ */
+public class WallMeshBuilder {
+    private static final float MAZE_LEFT = -0.5f;
+    private static final float MAZE_TOP = -0.5f;
+    private static final float WALL_THICKNESS = 0.025f;
+    private static final float WALL_Z = 0.3f;
+
+    /**
+     * Returns the walls of every row the layout currently holds, each wall once even
+     * though the two cells beside it both have it, and each straight run of walls
+     * along a grid line as one long rectangle.  Layouts that scroll draw their first
+     * row at the top of the board.
+     */
+    public static MeshBuilder build(MazeLayout layout) {
+        final float CELL_SIZE = layout.getCellSize();
+        final float CELL_WALL_THICKNESS = CELL_SIZE * WALL_THICKNESS;
+        int firstRow = layout.getFirstRow();
+        int lastRow = layout.getLastRow();
+        int cols = layout.getCols();
+        MeshBuilder builder = new MeshBuilder();
+
+        // Horizontal grid lines, the one above each row and the one below the last
+        for (int line = firstRow; line <= lastRow + 1; line++) {
+            float top = MAZE_TOP + (line - firstRow) * CELL_SIZE;
+            int runStart = -1;
+            for (int col = 0; col <= cols; col++) {
+                boolean wall = col < cols && horizontalWall(layout, line, col, firstRow, lastRow);
+                if (wall && runStart < 0) {
+                    runStart = col;
+                } else if (!wall && runStart >= 0) {
+                    builder.addRectangle(MAZE_LEFT + runStart * CELL_SIZE, top, (col - runStart) * CELL_SIZE, CELL_WALL_THICKNESS, WALL_Z, Color.YELLOW);
+                    runStart = -1;
+                }
+            }
+        }
+
+        // Vertical grid lines, the one left of each column and the one right of the last
+        for (int line = 0; line <= cols; line++) {
+            float left = MAZE_LEFT + line * CELL_SIZE;
+            int runStart = -1;
+            for (int row = firstRow; row <= lastRow + 1; row++) {
+                boolean wall = row <= lastRow && verticalWall(layout, row, line, cols);
+                if (wall && runStart < 0) {
+                    runStart = row;
+                } else if (!wall && runStart >= 0) {
+                    builder.addRectangle(left, MAZE_TOP + (runStart - firstRow) * CELL_SIZE, CELL_WALL_THICKNESS, (row - runStart) * CELL_SIZE, WALL_Z, Color.YELLOW);
+                    runStart = -1;
+                }
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Whether there is a wall along the top of the given row, as seen from either of
+     * the cells it separates.
+     */
+    private static boolean horizontalWall(MazeLayout layout, int line, int col, int firstRow, int lastRow) {
+        return (line <= lastRow && layout.hasWall(line, col, Maze.WALL_UP))
+                || (line > firstRow && layout.hasWall(line - 1, col, Maze.WALL_DOWN));
+    }
+
+    /**
+     * Whether there is a wall along the left of the given column, as seen from either
+     * of the cells it separates.
+     */
+    private static boolean verticalWall(MazeLayout layout, int row, int line, int cols) {
+        return (line < cols && layout.hasWall(row, line, Maze.WALL_LEFT))
+                || (line > 0 && layout.hasWall(row, line - 1, Maze.WALL_RIGHT));
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Wilson's algorithm.  Starting from every cell not yet in the maze, takes a
+ * loop-erased random walk until it hits the maze, then carves that walk in.
+ * Produces a uniformly random spanning tree, but can be slow to get started on
+ * big grids since the first walks wander for a long time.
+ */
+public class WilsonGenerator implements MazeGenerator {
+    // Reused so choosing a step doesn't allocate
+    private final int[] wallScratch = new int[4];
+
+    @Override
+    public void generate(Maze maze, RandomGenerator rand) {
+        int cellCount = maze.getCellCount();
+        // The wall each cell on the current walk last left through.  Overwriting it
+        // when the walk comes back around is what erases the loops.
+        byte[] walk = new byte[cellCount];
+        boolean[] inMaze = new boolean[cellCount];
+
+        inMaze[rand.nextInt(cellCount)] = true;
+        for (int start = 0; start < cellCount; start++) {
+            if (inMaze[start]) {
+                continue;
+            }
+            // wander until reaching the maze, remembering the last exit from each cell
+            int current = start;
+            while (!inMaze[current]) {
+                int wall = randomWall(maze, current, rand);
+                walk[current] = (byte) wall;
+                current = maze.neighbor(current, wall);
+            }
+            // follow the loop-erased walk again, carving it into the maze
+            current = start;
+            while (!inMaze[current]) {
+                inMaze[current] = true;
+                int wall = walk[current];
+                int next = maze.neighbor(current, wall);
+                maze.removeWall(current, wall);
+                current = next;
+            }
+        }
+    }
+
+    private int randomWall(Maze maze, int index, RandomGenerator rand) {
+        int count = 0;
+        for (int wall : Maze.WALLS) {
+            if (maze.neighbor(index, wall) >= 0) {
+                wallScratch[count++] = wall;
+            }
+        }
+        return wallScratch[rand.nextInt(count)];
+    }
+}
@@ -31,6 +31,7 @@ import org.lwjgl.glfw.GLFWVidMode;
 import org.lwjgl.opengl.GL;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.lwjgl.glfw.Callbacks.*;
@@ -46,17 +47,28 @@ public class Graphics2D  implements AutoCloseable {
     private long window;
 
     private final ArrayList<Tuple3<Rectangle, Color, Matrix4f>> rectanglesSolidColor = new ArrayList<>();
-    // TODO: Organize texture rectangles by texture to improve rendering efficiency
+    // Sorted by z, then texture, before drawing, see end()
     private final ArrayList<Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f>> rectanglesTexture = new ArrayList<>();
+    private static final Comparator<Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f>> TEXTURE_ORDER =
+            Comparator.<Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f>>comparingDouble(r -> r.item2().z)
+                    .thenComparingInt(r -> r.item1().getTextureId());
     private final ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> textGlyphs = new ArrayList<>();
     private final ArrayList<Tuple3<Triangle, Color, Matrix4f>> trianglesSolidColor = new ArrayList<>();
     private final ArrayList<Tuple3<Vector3f, Vector3f, Color>> lines = new ArrayList<>();
+    private final ArrayList<StaticMesh> meshes = new ArrayList<>();
 
     private Matrix4f mProjection;
     private Matrix4f mModelIdentity;
     private ShaderProgram shaderSolidColor;
-    private ShaderProgram shaderTexture;
     private ShaderProgram shaderFont;
+    private ShaderProgram shaderSolidColorInstanced;
+    private ShaderProgram shaderTextureInstanced;
+    // Vertex buffers kept from frame to frame, one for each kind of draw
+    private StreamingMesh meshLines;
+    private StreamingMesh meshTriangles;
+    private InstancedQuads quadsSolidColor;
+    private InstancedQuads quadsTexture;
+    private StreamingMesh meshTextGlyphs;
 
     public Graphics2D(int width, int height, String title) {
         this.width = width;
@@ -101,8 +113,15 @@ public class Graphics2D  implements AutoCloseable {
         this.mModelIdentity.identity();
 
         shaderSolidColor = createShader("resources/shaders/solid-color.vert", "resources/shaders/solid-color.frag");
-        shaderTexture = createShader("resources/shaders/texture.vert", "resources/shaders/texture.frag");
         shaderFont = createShader("resources/shaders/font.vert", "resources/shaders/font.frag");
+        shaderSolidColorInstanced = createShader("resources/shaders/solid-color-instanced.vert", "resources/shaders/solid-color.frag");
+        shaderTextureInstanced = createShader("resources/shaders/texture-instanced.vert", "resources/shaders/texture.frag");
+
+        meshLines = new StreamingMesh(3);
+        meshTriangles = new StreamingMesh(3);
+        quadsSolidColor = new InstancedQuads(4, 1, 3);
+        quadsTexture = new InstancedQuads(4, 1, 3, 4);
+        meshTextGlyphs = new StreamingMesh(2);
 
         // OSX needs this to be done before doing anything else in order for the
         // font rendering to work correctly.
@@ -125,25 +144,35 @@ public class Graphics2D  implements AutoCloseable {
     public void end() {
         // Draw the lines
         Graphics2DUtils.BuffersColor buffersLinesColor = Graphics2DUtils.prepareLinesColorBuffers(lines);
-        Graphics2DUtils.renderLines(mProjection, shaderSolidColor, buffersLinesColor, lines);
+        Graphics2DUtils.renderLines(mProjection, shaderSolidColor, meshLines, buffersLinesColor, lines);
 
         // Draw the solid colored triangles
         Graphics2DUtils.BuffersColor buffersTrisSolidColor = Graphics2DUtils.prepareTrisSolidColorBuffers(trianglesSolidColor);
-        Graphics2DUtils.renderTriangles(mProjection, shaderSolidColor, buffersTrisSolidColor, trianglesSolidColor);
+        Graphics2DUtils.renderTriangles(mProjection, shaderSolidColor, meshTriangles, buffersTrisSolidColor, trianglesSolidColor);
+
+        // Draw the retained meshes
+        for (StaticMesh mesh : meshes) {
+            Graphics2DUtils.renderMesh(mProjection, shaderSolidColor, mesh);
+        }
 
-        // Draw the solid colored rectangles
-        Graphics2DUtils.BuffersColor buffersRectsSolidColor = Graphics2DUtils.prepareRectsSolidColorBuffers(rectanglesSolidColor);
-        Graphics2DUtils.renderRectangles(mProjection, shaderSolidColor, buffersRectsSolidColor, rectanglesSolidColor);
+        // Draw the solid colored rectangles, one instance of a unit square each
+        float[] instancesSolidColor = Graphics2DUtils.prepareRectsSolidColorInstances(rectanglesSolidColor);
+        Graphics2DUtils.renderRectanglesInstanced(mProjection, shaderSolidColorInstanced, quadsSolidColor, instancesSolidColor, rectanglesSolidColor);
 
-        // Draw the textured rectangles
-        Graphics2DUtils.BuffersTexture buffersTexture = Graphics2DUtils.prepareRectsTextureBuffers(rectanglesTexture);
-        Graphics2DUtils.renderRectangles(mProjection, shaderTexture, buffersTexture, rectanglesTexture);
+        // Draw the textured rectangles.  Each kind of draw already has its own shader, so
+        // within this one they are sorted so the same texture comes together and makes one
+        // draw call.  Blending needs the farthest drawn first, so z comes before texture, and
+        // the sort is stable so rectangles at the same z and texture keep the order drawn.
+        rectanglesTexture.sort(TEXTURE_ORDER);
+        float[] instancesTexture = Graphics2DUtils.prepareRectsTextureInstances(rectanglesTexture);
+        Graphics2DUtils.renderTextureRectanglesInstanced(mProjection, shaderTextureInstanced, quadsTexture, instancesTexture, rectanglesTexture);
 
         // Draw the font rectangles
         Graphics2DUtils.BuffersTexture buffersTextGlyphs = Graphics2DUtils.prepareTextGlyphBuffers(textGlyphs);
-        Graphics2DUtils.renderTextGlyphRectangles(mProjection, shaderFont, buffersTextGlyphs, textGlyphs);
+        Graphics2DUtils.renderTextGlyphRectangles(mProjection, shaderFont, meshTextGlyphs, buffersTextGlyphs, textGlyphs);
 
         lines.clear();
+        meshes.clear();
         trianglesSolidColor.clear();
         rectanglesSolidColor.clear();
         rectanglesTexture.clear();
@@ -153,7 +182,15 @@ public class Graphics2D  implements AutoCloseable {
     }
 
     public void close() {
+        meshLines.cleanup();
+        meshTriangles.cleanup();
+        quadsSolidColor.cleanup();
+        quadsTexture.cleanup();
+        meshTextGlyphs.cleanup();
         shaderSolidColor.cleanup();
+        shaderFont.cleanup();
+        shaderSolidColorInstanced.cleanup();
+        shaderTextureInstanced.cleanup();
 
         glfwFreeCallbacks(window);
         glfwDestroyWindow(window);
@@ -163,6 +200,18 @@ public class Graphics2D  implements AutoCloseable {
         glfwSetErrorCallback(null).free();
     }
 
+    /**
+     * Uploads the rectangles once, so they can be drawn every frame after without
+     * building or sending them again.
+     */
+    public StaticMesh createMesh(MeshBuilder builder) {
+        return new StaticMesh(builder);
+    }
+
+    public void draw(StaticMesh mesh) {
+        meshes.add(mesh);
+    }
+
     public void draw(Vector3f pt1, Vector3f pt2, Color color) {
         lines.add(new Tuple3<>(pt1, pt2, color));
     }
@@ -195,6 +244,15 @@ public class Graphics2D  implements AutoCloseable {
         rectanglesTexture.add(new Tuple5<>(texture, destination, null, mModelIdentity, new Vector3f(color.r, color.g, color.b)));
     }
 
+    /**
+     * Draws part of a texture, given in pixels, such as one image of a {@link TextureAtlas}.
+     * Textured rectangles at the same z are drawn grouped by texture, so ones that
+     * overlap with different textures should be given different z.
+     */
+    public void draw(Texture texture, Rectangle destination, Rectangle subImage, Color color) {
+        rectanglesTexture.add(new Tuple5<>(texture, destination, subImage, mModelIdentity, new Vector3f(color.r, color.g, color.b)));
+    }
+
     public void draw(Texture texture, Rectangle destination, float rotation, Vector2f center, Color color) {
         Matrix4f mRotation = new Matrix4f();
         mRotation.translate(center.x, center.y, 0);
@@ -351,7 +409,7 @@ public class Graphics2D  implements AutoCloseable {
         glfwWindowHint(GLFW_RESIZABLE, GLFW_FALSE); // the window will not be resizable
 
         glfwWindowHint(GLFW_CONTEXT_VERSION_MAJOR, 3);
-        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 2);
+        glfwWindowHint(GLFW_CONTEXT_VERSION_MINOR, 3);
         glfwWindowHint(GLFW_OPENGL_PROFILE, GLFW_OPENGL_CORE_PROFILE);
         glfwWindowHint(GLFW_OPENGL_FORWARD_COMPAT, GLFW_TRUE);
 
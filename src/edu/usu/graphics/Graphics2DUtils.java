@@ -27,16 +27,14 @@ import org.joml.Matrix4f;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
 import org.lwjgl.system.MemoryStack;
-import org.lwjgl.system.MemoryUtil;
 
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 import java.util.ArrayList;
-import java.util.List;
 
 import static org.lwjgl.opengl.GL32.*;
 
 public class Graphics2DUtils {
+    private static final Matrix4f MODEL_IDENTITY = new Matrix4f();
 
     public static class BuffersColor {
         public BuffersColor(float[] positions, float[] colors, int[] indices) {
@@ -139,62 +137,7 @@ public class Graphics2DUtils {
         return new BuffersColor(positions, colors, indices);
     }
 
-    public static BuffersColor prepareRectsSolidColorBuffers(ArrayList<Tuple3<Rectangle, Color, Matrix4f>> rectangles) {
-        float[] positions = new float[rectangles.size() * 12];
-        float[] colors = new float[rectangles.size() * 12];
-        int[] indices = new int[rectangles.size() * 6];
-
-        int rIndex = 0;
-        int iIndex = 0;
-        for (var r : rectangles) {
-            positions[rIndex * 3 + 0] = r.item1().left;
-            positions[rIndex * 3 + 1] = r.item1().top;
-            positions[rIndex * 3 + 2] = r.item1().z;
-
-            positions[rIndex * 3 + 3] = r.item1().left + r.item1().width;
-            positions[rIndex * 3 + 4] = r.item1().top;
-            positions[rIndex * 3 + 5] = r.item1().z;
-
-            positions[rIndex * 3 + 6] = r.item1().left + r.item1().width;
-            positions[rIndex * 3 + 7] = r.item1().top + r.item1().height;
-            positions[rIndex * 3 + 8] = r.item1().z;
-
-            positions[rIndex * 3 + 9] = r.item1().left;
-            positions[rIndex * 3 + 10] = r.item1().top + r.item1().height;
-            positions[rIndex * 3 + 11] = r.item1().z;
-
-            colors[rIndex * 3 + 0] = r.item2().r;
-            colors[rIndex * 3 + 1] = r.item2().g;
-            colors[rIndex * 3 + 2] = r.item2().b;
-
-            colors[rIndex * 3 + 3] = r.item2().r;
-            colors[rIndex * 3 + 4] = r.item2().g;
-            colors[rIndex * 3 + 5] = r.item2().b;
-
-            colors[rIndex * 3 + 6] = r.item2().r;
-            colors[rIndex * 3 + 7] = r.item2().g;
-            colors[rIndex * 3 + 8] = r.item2().b;
-
-            colors[rIndex * 3 + 9] = r.item2().r;
-            colors[rIndex * 3 + 10] = r.item2().g;
-            colors[rIndex * 3 + 11] = r.item2().b;
-
-            indices[iIndex + 0] = rIndex + 0;
-            indices[iIndex + 1] = rIndex + 1;
-            indices[iIndex + 2] = rIndex + 2;
-
-            indices[iIndex + 3] = rIndex + 0;
-            indices[iIndex + 4] = rIndex + 2;
-            indices[iIndex + 5] = rIndex + 3;
-
-            rIndex += 4;
-            iIndex += 6;
-        }
-
-        return new BuffersColor(positions, colors, indices);
-    }
-
-    public static BuffersTexture prepareRectsTextureBuffers(ArrayList<Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f>> rectangles) {
+    public static BuffersTexture prepareTextGlyphBuffers(ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> rectangles) {
         float[] positions = new float[rectangles.size() * 12];
         float[] coords = new float[rectangles.size() * 8];
         int[] indices = new int[rectangles.size() * 6];
@@ -218,34 +161,17 @@ public class Graphics2DUtils {
             positions[rIndex * 3 + 10] = r.item2().top + r.item2().height;
             positions[rIndex * 3 + 11] = r.item2().z;
 
-            // r.item3 is the sub image to render, in pixels coord.
-            // we have to convert them to texture coords for correct rendering.
-
-            if (r.item3() != null) {
-                coords[rIndex * 2 + 0] = r.item3().left / r.item1().getWidth();
-                coords[rIndex * 2 + 1] = r.item3().top / r.item1().getHeight();
-
-                coords[rIndex * 2 + 2] = (r.item3().left + r.item3().width) / r.item1().getWidth();
-                coords[rIndex * 2 + 3] = r.item3().top / r.item1().getHeight();
-
-                coords[rIndex * 2 + 4] = (r.item3().left + r.item3().width) / r.item1().getWidth();
-                coords[rIndex * 2 + 5] = (r.item3().top + r.item3().height) / r.item1().getHeight();
-
-                coords[rIndex * 2 + 6] = r.item3().left / r.item1().getWidth();
-                coords[rIndex * 2 + 7] = (r.item3().top + r.item3().height) / r.item1().getHeight();
-            } else {
-                coords[rIndex * 2 + 0] = 0.0f;
-                coords[rIndex * 2 + 1] = 0.0f;
+            coords[rIndex * 2 + 0] = r.item3().x;
+            coords[rIndex * 2 + 1] = r.item3().y;
 
-                coords[rIndex * 2 + 2] = 1.0f;
-                coords[rIndex * 2 + 3] = 0.0f;
+            coords[rIndex * 2 + 2] = r.item4().x;
+            coords[rIndex * 2 + 3] = r.item4().y;
 
-                coords[rIndex * 2 + 4] = 1.0f;
-                coords[rIndex * 2 + 5] = 1.0f;
+            coords[rIndex * 2 + 4] = r.item5().x;
+            coords[rIndex * 2 + 5] = r.item5().y;
 
-                coords[rIndex * 2 + 6] = 0.0f;
-                coords[rIndex * 2 + 7] = 1.0f;
-            }
+            coords[rIndex * 2 + 6] = r.item6().x;
+            coords[rIndex * 2 + 7] = r.item6().y;
 
             indices[iIndex + 0] = rIndex + 0;
             indices[iIndex + 1] = rIndex + 1;
@@ -262,111 +188,87 @@ public class Graphics2DUtils {
         return new BuffersTexture(positions, coords, indices);
     }
 
-    public static BuffersTexture prepareTextGlyphBuffers(ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> rectangles) {
-        float[] positions = new float[rectangles.size() * 12];
-        float[] coords = new float[rectangles.size() * 8];
-        int[] indices = new int[rectangles.size() * 6];
+    /**
+     * One instance for each rectangle, for {@link InstancedQuads} made with attribute
+     * sizes 4, 1, 3: left, top, width and height, then z, then color.
+     */
+    public static float[] prepareRectsSolidColorInstances(ArrayList<Tuple3<Rectangle, Color, Matrix4f>> rectangles) {
+        float[] instances = new float[rectangles.size() * 8];
 
-        int rIndex = 0;
-        int iIndex = 0;
+        int i = 0;
         for (var r : rectangles) {
-            positions[rIndex * 3 + 0] = r.item2().left;
-            positions[rIndex * 3 + 1] = r.item2().top;
-            positions[rIndex * 3 + 2] = r.item2().z;
-
-            positions[rIndex * 3 + 3] = r.item2().left + r.item2().width;
-            positions[rIndex * 3 + 4] = r.item2().top;
-            positions[rIndex * 3 + 5] = r.item2().z;
-
-            positions[rIndex * 3 + 6] = r.item2().left + r.item2().width;
-            positions[rIndex * 3 + 7] = r.item2().top + r.item2().height;
-            positions[rIndex * 3 + 8] = r.item2().z;
-
-            positions[rIndex * 3 + 9] = r.item2().left;
-            positions[rIndex * 3 + 10] = r.item2().top + r.item2().height;
-            positions[rIndex * 3 + 11] = r.item2().z;
-
-            coords[rIndex * 2 + 0] = r.item3().x;
-            coords[rIndex * 2 + 1] = r.item3().y;
-
-            coords[rIndex * 2 + 2] = r.item4().x;
-            coords[rIndex * 2 + 3] = r.item4().y;
-
-            coords[rIndex * 2 + 4] = r.item5().x;
-            coords[rIndex * 2 + 5] = r.item5().y;
+            instances[i + 0] = r.item1().left;
+            instances[i + 1] = r.item1().top;
+            instances[i + 2] = r.item1().width;
+            instances[i + 3] = r.item1().height;
+            instances[i + 4] = r.item1().z;
+            instances[i + 5] = r.item2().r;
+            instances[i + 6] = r.item2().g;
+            instances[i + 7] = r.item2().b;
+            i += 8;
+        }
 
-            coords[rIndex * 2 + 6] = r.item6().x;
-            coords[rIndex * 2 + 7] = r.item6().y;
+        return instances;
+    }
 
-            indices[iIndex + 0] = rIndex + 0;
-            indices[iIndex + 1] = rIndex + 1;
-            indices[iIndex + 2] = rIndex + 2;
+    /**
+     * One instance for each rectangle, for {@link InstancedQuads} made with attribute
+     * sizes 4, 1, 3, 4: the destination, z, color, then the part of the texture to use
+     * as left, top, width and height in texture coords.
+     */
+    public static float[] prepareRectsTextureInstances(ArrayList<Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f>> rectangles) {
+        float[] instances = new float[rectangles.size() * 12];
 
-            indices[iIndex + 3] = rIndex + 0;
-            indices[iIndex + 4] = rIndex + 2;
-            indices[iIndex + 5] = rIndex + 3;
+        int i = 0;
+        for (var r : rectangles) {
+            instances[i + 0] = r.item2().left;
+            instances[i + 1] = r.item2().top;
+            instances[i + 2] = r.item2().width;
+            instances[i + 3] = r.item2().height;
+            instances[i + 4] = r.item2().z;
+            instances[i + 5] = r.item5().x;
+            instances[i + 6] = r.item5().y;
+            instances[i + 7] = r.item5().z;
 
-            rIndex += 4;
-            iIndex += 6;
+            // r.item3 is the sub image to render, in pixels coord.
+            if (r.item3() != null) {
+                instances[i + 8] = r.item3().left / r.item1().getWidth();
+                instances[i + 9] = r.item3().top / r.item1().getHeight();
+                instances[i + 10] = r.item3().width / r.item1().getWidth();
+                instances[i + 11] = r.item3().height / r.item1().getHeight();
+            } else {
+                instances[i + 8] = 0.0f;
+                instances[i + 9] = 0.0f;
+                instances[i + 10] = 1.0f;
+                instances[i + 11] = 1.0f;
+            }
+            i += 12;
         }
 
-        return new BuffersTexture(positions, coords, indices);
+        return instances;
     }
 
-    public static void renderTriangles(Matrix4f mProjection, ShaderProgram shader, BuffersColor buffers, ArrayList<Tuple3<Triangle, Color, Matrix4f>> triangles) {
+    public static void renderTriangles(Matrix4f mProjection, ShaderProgram shader, StreamingMesh mesh, BuffersColor buffers, ArrayList<Tuple3<Triangle, Color, Matrix4f>> triangles) {
         if (triangles.isEmpty()) {
             return;
         }
 
-        List<FloatBuffer> memBuffers = new ArrayList<>();
-        int vaoId = glGenVertexArrays();
-        glBindVertexArray(vaoId);
-
-        int vboVerts = glGenBuffers();
-        FloatBuffer bufferPositions = MemoryUtil.memAllocFloat(buffers.positions.length);
-        bufferPositions.put(0, buffers.positions);
-        glBindBuffer(GL_ARRAY_BUFFER, vboVerts);
-        glBufferData(GL_ARRAY_BUFFER, bufferPositions, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferPositions);
-        glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-
-        int vboColors = glGenBuffers();
-        FloatBuffer bufferColors = MemoryUtil.memAllocFloat(buffers.colors.length);
-        bufferColors.put(0, buffers.colors);
-        glBindBuffer(GL_ARRAY_BUFFER, vboColors);
-        glBufferData(GL_ARRAY_BUFFER, bufferColors, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferColors);
-        glEnableVertexAttribArray(1);
-        glVertexAttribPointer(1, 3, GL_FLOAT, false, 0, 0);
-
-        int vboIndex = glGenBuffers();
-        IntBuffer bufferIndex = MemoryUtil.memAllocInt(buffers.indices.length);
-        bufferIndex.put(0, buffers.indices);
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndex);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, bufferIndex, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferIndex);
-
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
-
+        mesh.upload(buffers.positions, buffers.colors, buffers.indices);
         shader.bind();
 
         try (MemoryStack stack = MemoryStack.stackPush()) {
-            // Now, step through the list of rectangles and see which ones we can draw together and
-            // which ones need to be drawn individually.
-            int locationProjection = glGetUniformLocation(shader.getProgramId(), "mProjection");
-            glUniformMatrix4fv(locationProjection, false, mProjection.get(stack.mallocFloat(16)));
-            int locationModel = glGetUniformLocation(shader.getProgramId(), "mModel");
-
-            glBindVertexArray(vaoId);
+            // One buffer for every model matrix, OpenGL copies it out during the call
+            FloatBuffer matrix = stack.mallocFloat(16);
+            glUniformMatrix4fv(shader.getUniformLocation("mProjection"), false, mProjection.get(matrix));
+            int locationModel = shader.getUniformLocation("mModel");
 
+            // Now, step through the list of triangles and see which ones we can draw together and
+            // which ones need to be drawn individually.
             int startIndex = 0;
             Matrix4f mModelGroup = triangles.get(0).item3();
             for (int t = 1; t <= triangles.size(); t++) {
                 if (t == triangles.size() || mModelGroup != triangles.get(t).item3()) {
-                    memBuffers.add(MemoryUtil.memAllocFloat(16));
-                    glUniformMatrix4fv(locationModel, false, mModelGroup.get(memBuffers.get(memBuffers.size() - 1)));
+                    glUniformMatrix4fv(locationModel, false, mModelGroup.get(matrix));
                     // * 3 because three values per index
                     glDrawElements(GL_TRIANGLES, (t - startIndex) * 3, GL_UNSIGNED_INT, (long) startIndex * 3 * Integer.BYTES);
 
@@ -376,341 +278,162 @@ public class Graphics2DUtils {
                     }
                 }
             }
-
-            glBindVertexArray(0);
-            shader.unbind();
-
-            glDeleteBuffers(vboVerts);
-            glDeleteBuffers(vboColors);
-            glDeleteBuffers(vboIndex);
-            glDeleteVertexArrays(vaoId);
         }
 
-        for (var memory : memBuffers) {
-            MemoryUtil.memFree(memory);
-        }
+        glBindVertexArray(0);
+        shader.unbind();
     }
 
-    public static void renderLines(Matrix4f mProjection, ShaderProgram shader, BuffersColor buffers, ArrayList<Tuple3<Vector3f, Vector3f, Color>> lines) {
+    public static void renderLines(Matrix4f mProjection, ShaderProgram shader, StreamingMesh mesh, BuffersColor buffers, ArrayList<Tuple3<Vector3f, Vector3f, Color>> lines) {
         if (lines.isEmpty()) {
             return;
         }
 
-        List<FloatBuffer> memBuffers = new ArrayList<>();
-        int vaoId = glGenVertexArrays();
-        glBindVertexArray(vaoId);
-
-        int vboVerts = glGenBuffers();
-        FloatBuffer bufferPositions = MemoryUtil.memAllocFloat(buffers.positions.length);
-        bufferPositions.put(0, buffers.positions);
-        glBindBuffer(GL_ARRAY_BUFFER, vboVerts);
-        glBufferData(GL_ARRAY_BUFFER, bufferPositions, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferPositions);
-        glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-
-        int vboColors = glGenBuffers();
-        FloatBuffer bufferColors = MemoryUtil.memAllocFloat(buffers.colors.length);
-        bufferColors.put(0, buffers.colors);
-        glBindBuffer(GL_ARRAY_BUFFER, vboColors);
-        glBufferData(GL_ARRAY_BUFFER, bufferColors, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferColors);
-        glEnableVertexAttribArray(1);
-        glVertexAttribPointer(1, 3, GL_FLOAT, false, 0, 0);
-
-        int vboIndex = glGenBuffers();
-        IntBuffer bufferIndex = MemoryUtil.memAllocInt(buffers.indices.length);
-        bufferIndex.put(0, buffers.indices);
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndex);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, bufferIndex, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferIndex);
-
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
-
+        mesh.upload(buffers.positions, buffers.colors, buffers.indices);
         shader.bind();
 
         try (MemoryStack stack = MemoryStack.stackPush()) {
-            // Now, step through the list of rectangles and see which ones we can draw together and
-            // which ones need to be drawn individually.
-            int locationProjection = glGetUniformLocation(shader.getProgramId(), "mProjection");
-            glUniformMatrix4fv(locationProjection, false, mProjection.get(stack.mallocFloat(16)));
-            int locationModel = glGetUniformLocation(shader.getProgramId(), "mModel");
-
-            glBindVertexArray(vaoId);
-
-            Matrix4f mModelGroup = (new Matrix4f()).identity();
-            memBuffers.add(MemoryUtil.memAllocFloat(16));
-            glUniformMatrix4fv(locationModel, false, mModelGroup.get(memBuffers.get(memBuffers.size() - 1)));
-            // * 2 because three values per index
+            FloatBuffer matrix = stack.mallocFloat(16);
+            glUniformMatrix4fv(shader.getUniformLocation("mProjection"), false, mProjection.get(matrix));
+            glUniformMatrix4fv(shader.getUniformLocation("mModel"), false, MODEL_IDENTITY.get(matrix));
+            // * 2 because two values per index
             glDrawElements(GL_LINES, lines.size() * 2, GL_UNSIGNED_INT, (long) 0);
+        }
 
-            glBindVertexArray(0);
-            shader.unbind();
+        glBindVertexArray(0);
+        shader.unbind();
+    }
 
-            glDeleteBuffers(vboVerts);
-            glDeleteBuffers(vboColors);
-            glDeleteBuffers(vboIndex);
-            glDeleteVertexArrays(vaoId);
+    public static void renderMesh(Matrix4f mProjection, ShaderProgram shader, StaticMesh mesh) {
+        if (mesh.getIndexCount() == 0) {
+            return;
         }
 
-        for (var memory : memBuffers) {
-            MemoryUtil.memFree(memory);
+        mesh.bind();
+        shader.bind();
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer matrix = stack.mallocFloat(16);
+            glUniformMatrix4fv(shader.getUniformLocation("mProjection"), false, mProjection.get(matrix));
+            glUniformMatrix4fv(shader.getUniformLocation("mModel"), false, MODEL_IDENTITY.get(matrix));
+            glDrawElements(GL_TRIANGLES, mesh.getIndexCount(), GL_UNSIGNED_INT, (long) 0);
         }
+
+        glBindVertexArray(0);
+        shader.unbind();
     }
 
-    public static void renderRectangles(Matrix4f mProjection, ShaderProgram shader, BuffersColor buffers, ArrayList<Tuple3<Rectangle, Color, Matrix4f>> rectangles) {
+    public static void renderTextGlyphRectangles(Matrix4f mProjection, ShaderProgram shader, StreamingMesh mesh, BuffersTexture buffers, ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> rectangles) {
         if (rectangles.isEmpty()) {
             return;
         }
 
-        List<FloatBuffer> memBuffers = new ArrayList<>();
-        int vaoId = glGenVertexArrays();
-        glBindVertexArray(vaoId);
-
-        int vboVerts = glGenBuffers();
-        FloatBuffer bufferPositions = MemoryUtil.memAllocFloat(buffers.positions.length);
-        bufferPositions.put(0, buffers.positions);
-        glBindBuffer(GL_ARRAY_BUFFER, vboVerts);
-        glBufferData(GL_ARRAY_BUFFER, bufferPositions, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferPositions);
-        glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-
-        int vboColors = glGenBuffers();
-        FloatBuffer bufferColors = MemoryUtil.memAllocFloat(buffers.colors.length);
-        bufferColors.put(0, buffers.colors);
-        glBindBuffer(GL_ARRAY_BUFFER, vboColors);
-        glBufferData(GL_ARRAY_BUFFER, bufferColors, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferColors);
-        glEnableVertexAttribArray(1);
-        glVertexAttribPointer(1, 3, GL_FLOAT, false, 0, 0);
-
-        int vboIndex = glGenBuffers();
-        IntBuffer bufferIndex = MemoryUtil.memAllocInt(buffers.indices.length);
-        bufferIndex.put(0, buffers.indices);
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndex);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, bufferIndex, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferIndex);
-
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
-
+        mesh.upload(buffers.positions, buffers.coords, buffers.indices);
         shader.bind();
 
         try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer matrix = stack.mallocFloat(16);
+            FloatBuffer color = stack.mallocFloat(3);
+            glUniformMatrix4fv(shader.getUniformLocation("mProjection"), false, mProjection.get(matrix));
+            int locationModel = shader.getUniformLocation("mModel");
+            int locationColor = shader.getUniformLocation("color");
+
             // Now, step through the list of rectangles and see which ones we can draw together and
             // which ones need to be drawn individually.
-            int locationProjection = glGetUniformLocation(shader.getProgramId(), "mProjection");
-            glUniformMatrix4fv(locationProjection, false, mProjection.get(stack.mallocFloat(16)));
-            int locationModel = glGetUniformLocation(shader.getProgramId(), "mModel");
-
-            glBindVertexArray(vaoId);
-
             int startIndex = 0;
-            Matrix4f mModelGroup = rectangles.get(0).item3();
+            Matrix4f mModelGroup = rectangles.get(0).item7();
             for (int r = 1; r <= rectangles.size(); r++) {
-                if (r == rectangles.size() || mModelGroup != rectangles.get(r).item3()) {
-                    memBuffers.add(MemoryUtil.memAllocFloat(16));
-                    glUniformMatrix4fv(locationModel, false, mModelGroup.get(memBuffers.get(memBuffers.size() - 1)));
+                if (r == rectangles.size() || rectangles.get(r - 1).item1() != rectangles.get(r).item1() || rectangles.get(r - 1).item8() != rectangles.get(r).item8() || mModelGroup != rectangles.get(r).item7()) {
+
+                    glUniformMatrix4fv(locationModel, false, mModelGroup.get(matrix));
+                    glUniform3fv(locationColor, rectangles.get(r - 1).item8().get(color));
+
+                    glActiveTexture(GL_TEXTURE0);
+                    rectangles.get(r - 1).item1().bind();
+
                     // * 3 because three values per index
                     // * 2 because two triangles per rectangle
                     glDrawElements(GL_TRIANGLES, (r - startIndex) * 3 * 2, GL_UNSIGNED_INT, (long) startIndex * 3 * 2 * Integer.BYTES);
 
                     startIndex = r;
                     if (r < rectangles.size()) {
-                        mModelGroup = rectangles.get(r).item3();
+                        mModelGroup = rectangles.get(r).item7();
                     }
                 }
             }
-
-            glBindVertexArray(0);
-            shader.unbind();
-
-            glDeleteBuffers(vboVerts);
-            glDeleteBuffers(vboColors);
-            glDeleteBuffers(vboIndex);
-            glDeleteVertexArrays(vaoId);
         }
 
-        for (var memory : memBuffers) {
-            MemoryUtil.memFree(memory);
-        }
+        glBindVertexArray(0);
+        shader.unbind();
     }
 
-    public static void renderRectangles(Matrix4f mProjection, ShaderProgram shader, BuffersTexture buffers, ArrayList<Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f>> rectangles) {
+    public static void renderRectanglesInstanced(Matrix4f mProjection, ShaderProgram shader, InstancedQuads quads, float[] instances, ArrayList<Tuple3<Rectangle, Color, Matrix4f>> rectangles) {
         if (rectangles.isEmpty()) {
             return;
         }
 
-        List<FloatBuffer> memBuffers = new ArrayList<>();
-
-        int vaoId = glGenVertexArrays();
-        glBindVertexArray(vaoId);
-
-        int vboVerts = glGenBuffers();
-        FloatBuffer bufferPositions = MemoryUtil.memAllocFloat(buffers.positions.length);
-        bufferPositions.put(0, buffers.positions);
-        glBindBuffer(GL_ARRAY_BUFFER, vboVerts);
-        glBufferData(GL_ARRAY_BUFFER, bufferPositions, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferPositions);
-        glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-
-        int vboCoords = glGenBuffers();
-        FloatBuffer bufferTexCoords = MemoryUtil.memAllocFloat(buffers.coords.length);
-        bufferTexCoords.put(0, buffers.coords);
-        glBindBuffer(GL_ARRAY_BUFFER, vboCoords);
-        glBufferData(GL_ARRAY_BUFFER, bufferTexCoords, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferTexCoords);
-        glEnableVertexAttribArray(1);
-        glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-
-        int vboIndex = glGenBuffers();
-        IntBuffer bufferIndex = MemoryUtil.memAllocInt(buffers.indices.length);
-        bufferIndex.put(0, buffers.indices);
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndex);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, bufferIndex, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferIndex);
-
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
-
+        quads.upload(instances, rectangles.size());
         shader.bind();
 
         try (MemoryStack stack = MemoryStack.stackPush()) {
-            // Now, step through the list of rectangles and see which ones we can draw together and
-            // which ones need to be drawn individually.
-            int locationProjection = glGetUniformLocation(shader.getProgramId(), "mProjection");
-            glUniformMatrix4fv(locationProjection, false, mProjection.get(stack.mallocFloat(16)));
-            int locationModel = glGetUniformLocation(shader.getProgramId(), "mModel");
-            int locationColor = glGetUniformLocation(shader.getProgramId(), "color");
-
-            glBindVertexArray(vaoId);
+            FloatBuffer matrix = stack.mallocFloat(16);
+            glUniformMatrix4fv(shader.getUniformLocation("mProjection"), false, mProjection.get(matrix));
+            int locationModel = shader.getUniformLocation("mModel");
 
+            // Color is part of each instance, so only a new model matrix starts a new draw
             int startIndex = 0;
-            Matrix4f mModelGroup = rectangles.get(0).item4();
+            Matrix4f mModelGroup = rectangles.get(0).item3();
             for (int r = 1; r <= rectangles.size(); r++) {
-                if (r == rectangles.size() || rectangles.get(r - 1).item1() != rectangles.get(r).item1() || rectangles.get(r - 1).item5() != rectangles.get(r).item5() || mModelGroup != rectangles.get(r).item4()) {
-
-                    memBuffers.add(MemoryUtil.memAllocFloat(16));
-                    glUniformMatrix4fv(locationModel, false, mModelGroup.get(memBuffers.get(memBuffers.size() - 1)));
-                    memBuffers.add(MemoryUtil.memAllocFloat(3));
-                    glUniform3fv(locationColor, rectangles.get(r - 1).item5().get(memBuffers.get(memBuffers.size() - 1)));
-
-                    glActiveTexture(GL_TEXTURE0);
-                    rectangles.get(r - 1).item1().bind();
-
-                    // * 3 because three values per index
-                    // * 2 because two triangles per rectangle
-                    glDrawElements(GL_TRIANGLES, (r - startIndex) * 3 * 2, GL_UNSIGNED_INT, (long) startIndex * 3 * 2 * Integer.BYTES);
+                if (r == rectangles.size() || mModelGroup != rectangles.get(r).item3()) {
+                    glUniformMatrix4fv(locationModel, false, mModelGroup.get(matrix));
+                    quads.draw(startIndex, r - startIndex);
 
                     startIndex = r;
                     if (r < rectangles.size()) {
-                        mModelGroup = rectangles.get(r).item4();
+                        mModelGroup = rectangles.get(r).item3();
                     }
                 }
             }
-
-            glBindVertexArray(0);
-            shader.unbind();
-
-            glDeleteBuffers(vboVerts);
-            glDeleteBuffers(vboCoords);
-            glDeleteBuffers(vboIndex);
-            glDeleteVertexArrays(vaoId);
         }
 
-        for (var memory : memBuffers) {
-            MemoryUtil.memFree(memory);
-        }
+        glBindVertexArray(0);
+        shader.unbind();
     }
 
-    public static void renderTextGlyphRectangles(Matrix4f mProjection, ShaderProgram shader, BuffersTexture buffers, ArrayList<Tuple8<Texture, Rectangle, Vector2f, Vector2f, Vector2f, Vector2f, Matrix4f, Vector3f>> rectangles) {
+    public static void renderTextureRectanglesInstanced(Matrix4f mProjection, ShaderProgram shader, InstancedQuads quads, float[] instances, ArrayList<Tuple5<Texture, Rectangle, Rectangle, Matrix4f, Vector3f>> rectangles) {
         if (rectangles.isEmpty()) {
             return;
         }
 
-        List<FloatBuffer> memBuffers = new ArrayList<>();
-
-        int vaoId = glGenVertexArrays();
-        glBindVertexArray(vaoId);
-
-        int vboVerts = glGenBuffers();
-        FloatBuffer bufferPositions = MemoryUtil.memAllocFloat(buffers.positions.length);
-        bufferPositions.put(0, buffers.positions);
-        glBindBuffer(GL_ARRAY_BUFFER, vboVerts);
-        glBufferData(GL_ARRAY_BUFFER, bufferPositions, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferPositions);
-        glEnableVertexAttribArray(0);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-
-        int vboCoords = glGenBuffers();
-        FloatBuffer bufferTexCoords = MemoryUtil.memAllocFloat(buffers.coords.length);
-        bufferTexCoords.put(0, buffers.coords);
-        glBindBuffer(GL_ARRAY_BUFFER, vboCoords);
-        glBufferData(GL_ARRAY_BUFFER, bufferTexCoords, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferTexCoords);
-        glEnableVertexAttribArray(1);
-        glVertexAttribPointer(1, 2, GL_FLOAT, false, 0, 0);
-
-        int vboIndex = glGenBuffers();
-        IntBuffer bufferIndex = MemoryUtil.memAllocInt(buffers.indices.length);
-        bufferIndex.put(0, buffers.indices);
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndex);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, bufferIndex, GL_STATIC_DRAW);
-        MemoryUtil.memFree(bufferIndex);
-
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
-
+        quads.upload(instances, rectangles.size());
         shader.bind();
 
         try (MemoryStack stack = MemoryStack.stackPush()) {
-            // Now, step through the list of rectangles and see which ones we can draw together and
-            // which ones need to be drawn individually.
-            int locationProjection = glGetUniformLocation(shader.getProgramId(), "mProjection");
-            glUniformMatrix4fv(locationProjection, false, mProjection.get(stack.mallocFloat(16)));
-            int locationModel = glGetUniformLocation(shader.getProgramId(), "mModel");
-            int locationColor = glGetUniformLocation(shader.getProgramId(), "color");
-
-            glBindVertexArray(vaoId);
+            FloatBuffer matrix = stack.mallocFloat(16);
+            glUniformMatrix4fv(shader.getUniformLocation("mProjection"), false, mProjection.get(matrix));
+            int locationModel = shader.getUniformLocation("mModel");
 
+            // Color is part of each instance, so only a new texture or model matrix starts a new draw
             int startIndex = 0;
-            Matrix4f mModelGroup = rectangles.get(0).item7();
+            Matrix4f mModelGroup = rectangles.get(0).item4();
             for (int r = 1; r <= rectangles.size(); r++) {
-                if (r == rectangles.size() || rectangles.get(r - 1).item1() != rectangles.get(r).item1() || rectangles.get(r - 1).item8() != rectangles.get(r).item8() || mModelGroup != rectangles.get(r).item7()) {
-
-                    memBuffers.add(MemoryUtil.memAllocFloat(16));
-                    glUniformMatrix4fv(locationModel, false, mModelGroup.get(memBuffers.get(memBuffers.size() - 1)));
-                    memBuffers.add(MemoryUtil.memAllocFloat(3));
-                    glUniform3fv(locationColor, rectangles.get(r - 1).item8().get(memBuffers.get(memBuffers.size() - 1)));
+                if (r == rectangles.size() || rectangles.get(r - 1).item1() != rectangles.get(r).item1() || mModelGroup != rectangles.get(r).item4()) {
+                    glUniformMatrix4fv(locationModel, false, mModelGroup.get(matrix));
 
                     glActiveTexture(GL_TEXTURE0);
                     rectangles.get(r - 1).item1().bind();
 
-                    // * 3 because three values per index
-                    // * 2 because two triangles per rectangle
-                    glDrawElements(GL_TRIANGLES, (r - startIndex) * 3 * 2, GL_UNSIGNED_INT, (long) startIndex * 3 * 2 * Integer.BYTES);
+                    quads.draw(startIndex, r - startIndex);
 
                     startIndex = r;
                     if (r < rectangles.size()) {
-                        mModelGroup = rectangles.get(r).item7();
+                        mModelGroup = rectangles.get(r).item4();
                     }
                 }
             }
-
-            glBindVertexArray(0);
-            shader.unbind();
-
-            glDeleteBuffers(vboVerts);
-            glDeleteBuffers(vboCoords);
-            glDeleteBuffers(vboIndex);
-            glDeleteVertexArrays(vaoId);
         }
 
-        for (var memory : memBuffers) {
-            MemoryUtil.memFree(memory);
-        }
+        glBindVertexArray(0);
+        shader.unbind();
     }
 }
@@ -0,0 +1,138 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * Draws many rectangles as instances of one unit square.  The square's corners,
+ * (0, 0) to (1, 1), are attribute 0 and never change; each rectangle is a run of
+ * floats in an instance buffer, split into attributes 1, 2, ... by the sizes given
+ * when it's made.  The vertex shader stretches the square over the rectangle, so a
+ * rectangle costs its instance floats instead of four full vertices and six indices.
+ *
+ * <p>The instance buffer streams the same way {@link StreamingMesh} does.  Vertex
+ * attribute divisors need OpenGL 3.3, the same version the shaders are written for.
+ */
+public class InstancedQuads {
+    private static final float[] UNIT_SQUARE = {0, 0, 1, 0, 1, 1, 0, 1};
+    private static final int[] UNIT_SQUARE_INDICES = {0, 1, 2, 0, 2, 3};
+
+    private final int vaoId;
+    private final int vboSquare;
+    private final int vboIndices;
+    private final int vboInstances;
+    private final int[] attributeSizes;
+    private final int floatsPerInstance;
+    private int instancesCapacity;
+    private FloatBuffer staging;
+
+    public InstancedQuads(int... attributeSizes) {
+        this.attributeSizes = attributeSizes.clone();
+        int floats = 0;
+        for (int size : attributeSizes) {
+            floats += size;
+        }
+        this.floatsPerInstance = floats;
+        this.staging = MemoryUtil.memAllocFloat(floatsPerInstance * 256);
+
+        vaoId = glGenVertexArrays();
+        glBindVertexArray(vaoId);
+
+        vboSquare = glGenBuffers();
+        FloatBuffer square = MemoryUtil.memAllocFloat(UNIT_SQUARE.length);
+        square.put(0, UNIT_SQUARE);
+        glBindBuffer(GL_ARRAY_BUFFER, vboSquare);
+        glBufferData(GL_ARRAY_BUFFER, square, GL_STATIC_DRAW);
+        MemoryUtil.memFree(square);
+        glEnableVertexAttribArray(0);
+        glVertexAttribPointer(0, 2, GL_FLOAT, false, 0, 0);
+
+        vboIndices = glGenBuffers();
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndices);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, UNIT_SQUARE_INDICES, GL_STATIC_DRAW);
+
+        vboInstances = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, vboInstances);
+        for (int a = 0; a < attributeSizes.length; a++) {
+            glEnableVertexAttribArray(a + 1);
+            glVertexAttribDivisor(a + 1, 1);
+        }
+        pointAt(0);
+
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    public int getFloatsPerInstance() {return floatsPerInstance;}
+
+    /**
+     * Replaces the instances with the first count of them in the given floats, then
+     * leaves the vertex array bound ready to draw.
+     */
+    public void upload(float[] instances, int count) {
+        int length = count * floatsPerInstance;
+        if (staging.capacity() < length) {
+            staging = MemoryUtil.memRealloc(staging, Math.max(length, staging.capacity() + staging.capacity() / 2));
+        }
+        staging.clear().put(0, instances, 0, length).limit(length);
+
+        glBindVertexArray(vaoId);
+        glBindBuffer(GL_ARRAY_BUFFER, vboInstances);
+        if (instancesCapacity < count) {
+            instancesCapacity = Math.max(count, instancesCapacity + instancesCapacity / 2);
+        }
+        // Orphan the old storage so this frame doesn't wait on the last one's draws
+        glBufferData(GL_ARRAY_BUFFER, (long) instancesCapacity * floatsPerInstance * Float.BYTES, GL_STREAM_DRAW);
+        glBufferSubData(GL_ARRAY_BUFFER, 0, staging);
+    }
+
+    /**
+     * Draws count instances starting at first from the last upload.  There is no base
+     * instance before OpenGL 4.2, so the instance attributes are pointed at first.
+     */
+    public void draw(int first, int count) {
+        pointAt(first);
+        glDrawElementsInstanced(GL_TRIANGLES, UNIT_SQUARE_INDICES.length, GL_UNSIGNED_INT, 0, count);
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(vboSquare);
+        glDeleteBuffers(vboIndices);
+        glDeleteBuffers(vboInstances);
+        glDeleteVertexArrays(vaoId);
+        MemoryUtil.memFree(staging);
+    }
+
+    private void pointAt(int first) {
+        int stride = floatsPerInstance * Float.BYTES;
+        long offset = (long) first * stride;
+        for (int a = 0; a < attributeSizes.length; a++) {
+            glVertexAttribPointer(a + 1, attributeSizes[a], GL_FLOAT, false, stride, offset);
+            offset += (long) attributeSizes[a] * Float.BYTES;
+        }
+    }
+}
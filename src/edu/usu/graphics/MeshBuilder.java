@@ -0,0 +1,83 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import java.util.Arrays;
+
+/**
+ * Collects solid colored rectangles into flat vertex arrays so they can be turned
+ * into a {@link StaticMesh} with {@link Graphics2D#createMesh}.  Nothing is allocated
+ * per rectangle, which matters for meshes of millions of them.
+ */
+public class MeshBuilder {
+    float[] positions = new float[12 * 64];
+    float[] colors = new float[12 * 64];
+    private int rectangleCount;
+
+    public int getRectangleCount() {return rectangleCount;}
+
+    public void addRectangle(float left, float top, float width, float height, float z, Color color) {
+        if ((rectangleCount + 1) * 12 > positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+            colors = Arrays.copyOf(colors, colors.length * 2);
+        }
+        float right = left + width;
+        float bottom = top + height;
+        int p = rectangleCount * 12;
+        positions[p] = left;
+        positions[p + 1] = top;
+        positions[p + 2] = z;
+        positions[p + 3] = right;
+        positions[p + 4] = top;
+        positions[p + 5] = z;
+        positions[p + 6] = right;
+        positions[p + 7] = bottom;
+        positions[p + 8] = z;
+        positions[p + 9] = left;
+        positions[p + 10] = bottom;
+        positions[p + 11] = z;
+        for (int i = p; i < p + 12; i += 3) {
+            colors[i] = color.r;
+            colors[i + 1] = color.g;
+            colors[i + 2] = color.b;
+        }
+        rectangleCount++;
+    }
+
+    /**
+     * Two triangles for every rectangle, in the same order as the rectangles.
+     */
+    int[] indices() {
+        int[] indices = new int[rectangleCount * 6];
+        for (int r = 0; r < rectangleCount; r++) {
+            int vertex = r * 4;
+            int i = r * 6;
+            indices[i] = vertex;
+            indices[i + 1] = vertex + 1;
+            indices[i + 2] = vertex + 2;
+            indices[i + 3] = vertex;
+            indices[i + 4] = vertex + 2;
+            indices[i + 5] = vertex + 3;
+        }
+        return indices;
+    }
+}
@@ -33,6 +33,8 @@ import static org.lwjgl.opengl.GL32.*;
 public class ShaderProgram {
 
     private final int programId;
+    // Looked up once per name, they don't change after linking
+    private final Map<String, Integer> uniformLocations = new HashMap<>();
 
     public ShaderProgram(List<ShaderModuleData> shaderModuleDataList) {
         programId = glCreateProgram();
@@ -79,6 +81,10 @@ public class ShaderProgram {
         return programId;
     }
 
+    public int getUniformLocation(String name) {
+        return uniformLocations.computeIfAbsent(name, n -> glGetUniformLocation(programId, n));
+    }
+
     private void link(List<Integer> shaderModules) {
         glLinkProgram(programId);
         if (glGetProgrami(programId, GL_LINK_STATUS) == 0) {
@@ -0,0 +1,91 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL32.*;
+
+/**
+ * Solid colored geometry uploaded to the GPU once and drawn as it is every frame
+ * after, for things like maze walls that change far less often than they're drawn.
+ * Made by {@link Graphics2D#createMesh} and drawn with {@link Graphics2D#draw(StaticMesh)}.
+ * Call cleanup when it is no longer needed.
+ */
+public class StaticMesh {
+    private final int vaoId;
+    private final int vboPositions;
+    private final int vboColors;
+    private final int vboIndices;
+    private final int indexCount;
+
+    StaticMesh(MeshBuilder builder) {
+        int rectangleCount = builder.getRectangleCount();
+        int[] indices = builder.indices();
+        indexCount = indices.length;
+
+        vaoId = glGenVertexArrays();
+        glBindVertexArray(vaoId);
+        vboPositions = uploadFloats(builder.positions, rectangleCount * 12);
+        glEnableVertexAttribArray(0);
+        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+        vboColors = uploadFloats(builder.colors, rectangleCount * 12);
+        glEnableVertexAttribArray(1);
+        glVertexAttribPointer(1, 3, GL_FLOAT, false, 0, 0);
+
+        vboIndices = glGenBuffers();
+        IntBuffer bufferIndices = MemoryUtil.memAllocInt(indices.length);
+        bufferIndices.put(0, indices);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndices);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, bufferIndices, GL_STATIC_DRAW);
+        MemoryUtil.memFree(bufferIndices);
+
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    public int getIndexCount() {return indexCount;}
+
+    void bind() {
+        glBindVertexArray(vaoId);
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(vboPositions);
+        glDeleteBuffers(vboColors);
+        glDeleteBuffers(vboIndices);
+        glDeleteVertexArrays(vaoId);
+    }
+
+    private static int uploadFloats(float[] data, int length) {
+        int vbo = glGenBuffers();
+        FloatBuffer buffer = MemoryUtil.memAllocFloat(length);
+        buffer.put(0, data, 0, length);
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        glBufferData(GL_ARRAY_BUFFER, buffer, GL_STATIC_DRAW);
+        MemoryUtil.memFree(buffer);
+        return vbo;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL32.*;
+
+/**
+ * A vertex array with a position, a per-vertex attribute and an index buffer that
+ * lives for as long as the renderer does.  New vertex data replaces the old every
+ * frame: the buffers are orphaned and the data written with glBufferSubData, so the
+ * driver can hand out fresh storage while the previous frame is still drawing.
+ * The buffers, and the native memory the data is copied through, only ever grow.
+ */
+public class StreamingMesh {
+    private final int vaoId;
+    private final int vboPositions;
+    private final int vboAttributes;
+    private final int vboIndices;
+    // Sizes the GPU buffers were last allocated with, in elements
+    private int positionsCapacity;
+    private int attributesCapacity;
+    private int indicesCapacity;
+    private FloatBuffer stagingFloats;
+    private IntBuffer stagingInts;
+
+    /**
+     * Creates the buffers, with attributeSize floats per vertex for attribute 1.
+     */
+    public StreamingMesh(int attributeSize) {
+        vaoId = glGenVertexArrays();
+        vboPositions = glGenBuffers();
+        vboAttributes = glGenBuffers();
+        vboIndices = glGenBuffers();
+        stagingFloats = MemoryUtil.memAllocFloat(1024);
+        stagingInts = MemoryUtil.memAllocInt(1024);
+
+        glBindVertexArray(vaoId);
+        glBindBuffer(GL_ARRAY_BUFFER, vboPositions);
+        glEnableVertexAttribArray(0);
+        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+        glBindBuffer(GL_ARRAY_BUFFER, vboAttributes);
+        glEnableVertexAttribArray(1);
+        glVertexAttribPointer(1, attributeSize, GL_FLOAT, false, 0, 0);
+        // The element buffer binding is part of the vertex array state
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, vboIndices);
+        glBindVertexArray(0);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Replaces the vertex data, then leaves the vertex array bound ready to draw.
+     */
+    public void upload(float[] positions, float[] attributes, int[] indices) {
+        glBindVertexArray(vaoId);
+        positionsCapacity = uploadFloats(vboPositions, positions, positionsCapacity);
+        attributesCapacity = uploadFloats(vboAttributes, attributes, attributesCapacity);
+
+        if (stagingInts.capacity() < indices.length) {
+            stagingInts = MemoryUtil.memRealloc(stagingInts, grow(stagingInts.capacity(), indices.length));
+        }
+        stagingInts.clear().put(0, indices).limit(indices.length);
+        indicesCapacity = orphan(GL_ELEMENT_ARRAY_BUFFER, indicesCapacity, indices.length);
+        glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0, stagingInts);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
+
+    public void bind() {
+        glBindVertexArray(vaoId);
+    }
+
+    public void cleanup() {
+        glDeleteBuffers(vboPositions);
+        glDeleteBuffers(vboAttributes);
+        glDeleteBuffers(vboIndices);
+        glDeleteVertexArrays(vaoId);
+        MemoryUtil.memFree(stagingFloats);
+        MemoryUtil.memFree(stagingInts);
+    }
+
+    private int uploadFloats(int vbo, float[] data, int capacity) {
+        if (stagingFloats.capacity() < data.length) {
+            stagingFloats = MemoryUtil.memRealloc(stagingFloats, grow(stagingFloats.capacity(), data.length));
+        }
+        stagingFloats.clear().put(0, data).limit(data.length);
+        glBindBuffer(GL_ARRAY_BUFFER, vbo);
+        capacity = orphan(GL_ARRAY_BUFFER, capacity, data.length);
+        glBufferSubData(GL_ARRAY_BUFFER, 0, stagingFloats);
+        return capacity;
+    }
+
+    /**
+     * Gives the bound buffer new storage of the current capacity, grown first if the
+     * data no longer fits, and returns the capacity it now has.  Floats and ints are
+     * both four bytes.
+     */
+    private static int orphan(int target, int capacity, int length) {
+        if (capacity < length) {
+            capacity = grow(capacity, length);
+        }
+        glBufferData(target, (long) capacity * Float.BYTES, GL_STREAM_DRAW);
+        return capacity;
+    }
+
+    private static int grow(int capacity, int needed) {
+        return Math.max(needed, capacity + capacity / 2);
+    }
+}
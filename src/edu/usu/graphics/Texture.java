@@ -81,6 +81,18 @@ public class Texture {
         }
     }
 
+    // --------------------------------------------------------------
+    //
+    // Builds a texture from pixels that are already decoded, four bytes
+    // of RGBA each.  Used by the TextureAtlas once it has packed its images.
+    //
+    // --------------------------------------------------------------
+    Texture(ByteBuffer pixels, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.textureId = createTexture(pixels);
+    }
+
     public int getWidth() {
         return this.width;
     }
@@ -89,6 +101,10 @@ public class Texture {
         return this.height;
     }
 
+    int getTextureId() {
+        return textureId;
+    }
+
     public void bind() {
         glBindTexture(GL_TEXTURE_2D, textureId);
     }
@@ -0,0 +1,144 @@
+/*
+Copyright (c) 2024 James Dean Mathias
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+THE SOFTWARE.
+*/
+package edu.usu.graphics;
+
+import org.lwjgl.system.MemoryStack;
+import org.lwjgl.system.MemoryUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.stb.STBImage.*;
+
+/**
+ * Several images packed into one texture, so quads drawn with any of them can go
+ * out in the same draw call.  Each image is found again by the path it was loaded
+ * from, as the part of the atlas it landed in, in pixels, ready to pass as the sub
+ * image of {@link Graphics2D#draw(Texture, Rectangle, Rectangle, Color)}.
+ *
+ * <p>Images are packed in shelves, tallest first, with a gap around each so that
+ * smaller mipmap levels don't blend in the edges of their neighbors.
+ */
+public class TextureAtlas {
+    private static final int PADDING = 16;
+
+    private final Texture texture;
+    private final Map<String, Rectangle> regions = new HashMap<>();
+
+    public TextureAtlas(String... imagePaths) {
+        ByteBuffer[] images = new ByteBuffer[imagePaths.length];
+        int[] widths = new int[imagePaths.length];
+        int[] heights = new int[imagePaths.length];
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+            for (int i = 0; i < imagePaths.length; i++) {
+                images[i] = stbi_load(imagePaths[i], w, h, channels, 4);
+                if (images[i] == null) {
+                    throw new RuntimeException("Image file [" + imagePaths[i] + "] not loaded: " + stbi_failure_reason());
+                }
+                widths[i] = w.get(0);
+                heights[i] = h.get(0);
+            }
+        }
+
+        int[] placements = pack(widths, heights, PADDING);
+        int atlasWidth = placements[placements.length - 2];
+        int atlasHeight = placements[placements.length - 1];
+        ByteBuffer pixels = MemoryUtil.memCalloc(atlasWidth * atlasHeight * 4);
+        for (int i = 0; i < imagePaths.length; i++) {
+            int left = placements[i * 2];
+            int top = placements[i * 2 + 1];
+            for (int row = 0; row < heights[i]; row++) {
+                MemoryUtil.memCopy(
+                        MemoryUtil.memAddress(images[i]) + (long) row * widths[i] * 4,
+                        MemoryUtil.memAddress(pixels) + ((long) (top + row) * atlasWidth + left) * 4,
+                        (long) widths[i] * 4);
+            }
+            stbi_image_free(images[i]);
+            regions.put(imagePaths[i], new Rectangle(left, top, widths[i], heights[i]));
+        }
+
+        texture = new Texture(pixels, atlasWidth, atlasHeight);
+        MemoryUtil.memFree(pixels);
+    }
+
+    public Texture getTexture() {return texture;}
+
+    /**
+     * Returns where the image loaded from the given path is in the atlas, in pixels.
+     */
+    public Rectangle getRegion(String imagePath) {
+        Rectangle region = regions.get(imagePath);
+        if (region == null) {
+            throw new IllegalArgumentException("Image [" + imagePath + "] is not in the atlas");
+        }
+        return region;
+    }
+
+    public void cleanup() {
+        texture.cleanup();
+    }
+
+    /**
+     * Places rectangles of the given sizes in shelves, tallest first.  The width is
+     * the smallest power of two that holds the widest rectangle and would make the
+     * atlas about square.  Returns the left and top of each rectangle in order,
+     * followed by the width and height of the atlas.
+     */
+    static int[] pack(int[] widths, int[] heights, int padding) {
+        int count = widths.length;
+        long area = 0;
+        int widest = 0;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            area += (long) (widths[i] + padding) * (heights[i] + padding);
+            widest = Math.max(widest, widths[i] + padding * 2);
+            order[i] = i;
+        }
+        int atlasWidth = Integer.highestOneBit(Math.max(widest, (int) Math.ceil(Math.sqrt(area))) - 1) << 1;
+        Arrays.sort(order, (a, b) -> Integer.compare(heights[b], heights[a]));
+
+        int[] placements = new int[count * 2 + 2];
+        int x = padding;
+        int shelfTop = padding;
+        int shelfHeight = 0;
+        for (int i : order) {
+            if (x + widths[i] + padding > atlasWidth) {
+                x = padding;
+                shelfTop += shelfHeight + padding;
+                shelfHeight = 0;
+            }
+            placements[i * 2] = x;
+            placements[i * 2 + 1] = shelfTop;
+            x += widths[i] + padding;
+            shelfHeight = Math.max(shelfHeight, heights[i]);
+        }
+        placements[count * 2] = atlasWidth;
+        placements[count * 2 + 1] = shelfTop + shelfHeight + padding;
+        return placements;
+    }
+}